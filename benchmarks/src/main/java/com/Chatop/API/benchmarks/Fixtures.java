@@ -0,0 +1,104 @@
+package com.Chatop.API.benchmarks;
+
+import com.Chatop.API.dto.rental.RentalResponse;
+import com.Chatop.API.repository.RentalRepository;
+import com.Chatop.API.security.JwtService;
+import com.Chatop.API.service.FileStorageService;
+import com.Chatop.API.service.RentalListWriter;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.AbstractPlatformTransactionManager;
+import org.springframework.transaction.support.DefaultTransactionStatus;
+
+import java.lang.reflect.Proxy;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+
+/**
+ * Instances des composants de l'API configurées comme le ferait Spring ({@code @Value}, {@code @PostConstruct}),
+ * sans démarrer de contexte.
+ */
+final class Fixtures {
+
+    private static final String SECRET = Base64.getEncoder().encodeToString(
+            "benchmark-secret-benchmark-secret-benchmark-secret-0123456789".getBytes());
+
+    private Fixtures() {
+    }
+
+    static JwtService jwtService(int verifiedCacheSize) {
+        JwtService service = new JwtService(new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(service, "secret", SECRET);
+        ReflectionTestUtils.setField(service, "expirationSeconds", 86_400L);
+        ReflectionTestUtils.setField(service, "verifiedCacheSize", verifiedCacheSize);
+        ReflectionTestUtils.invokeMethod(service, "init");
+        return service;
+    }
+
+    static FileStorageService fileStorageService(Path dir) {
+        FileStorageService service = new FileStorageService(new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(service, "uploadDir", dir.toString());
+        ReflectionTestUtils.setField(service, "publicBaseUrl", "/images");
+        ReflectionTestUtils.setField(service, "publicBaseUrlHost", "http://localhost:3001");
+        ReflectionTestUtils.invokeMethod(service, "init");
+        return service;
+    }
+
+    /**
+     * Lignes telles que les renvoie la projection JPQL de {@code RentalRepository}.
+     */
+    static List<RentalResponse> rentalResponses(int count) {
+        Instant now = Instant.parse("2024-01-01T00:00:00Z");
+        List<RentalResponse> rentals = new ArrayList<>(count);
+        for (int i = 1; i <= count; i++) {
+            rentals.add(new RentalResponse((long) i, "Appartement " + i, 20 + i % 200, 300 + i % 3000,
+                    "http://localhost:3001/images/" + Integer.toHexString(i) + "-thumb.jpg",
+                    "Bel appartement lumineux proche du centre-ville, référence " + i
+                            + ". Cuisine équipée, balcon, parking.",
+                    1L, now.plusSeconds(i), now.plusSeconds(i)));
+        }
+        return rentals;
+    }
+
+    /**
+     * Écrivain de la liste dont le dépôt renvoie {@code rows} en flux, sans base ni transaction réelle.
+     */
+    static RentalListWriter rentalListWriter(List<RentalResponse> rows, ObjectMapper objectMapper) {
+        RentalRepository repository = (RentalRepository) Proxy.newProxyInstance(RentalRepository.class.getClassLoader(),
+                new Class<?>[]{RentalRepository.class}, (proxy, method, args) -> {
+                    if (method.getName().equals("streamAllResponses")) {
+                        return rows.stream();
+                    }
+                    throw new UnsupportedOperationException(method.getName());
+                });
+        return new RentalListWriter(repository, objectMapper, new NoTransactionManager());
+    }
+
+    /**
+     * Transactions sans effet : seul le coût de la lecture et de l'écriture JSON est mesuré.
+     */
+    private static final class NoTransactionManager extends AbstractPlatformTransactionManager {
+
+        @Override
+        protected Object doGetTransaction() {
+            return new Object();
+        }
+
+        @Override
+        protected void doBegin(Object transaction, TransactionDefinition definition) {
+        }
+
+        @Override
+        protected void doCommit(DefaultTransactionStatus status) {
+        }
+
+        @Override
+        protected void doRollback(DefaultTransactionStatus status) {
+        }
+    }
+}
@@ -0,0 +1,57 @@
+package com.Chatop.API.benchmarks;
+
+import com.Chatop.API.security.JwtService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Génération et vérification des tokens JWT, avec et sans le cache des tokens déjà vérifiés.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class JwtBenchmark {
+
+    private static final Map<String, Object> CLAIMS = Map.of("userId", 42L, "name", "Bench User");
+
+    private JwtService cached;
+    private JwtService uncached;
+    private String token;
+
+    @Setup
+    public void setup() {
+        cached = Fixtures.jwtService(10_000);
+        uncached = Fixtures.jwtService(0);
+        token = cached.generateToken("bench@chatop.com", CLAIMS);
+    }
+
+    @Benchmark
+    public String generateToken() {
+        return cached.generateToken("bench@chatop.com", CLAIMS);
+    }
+
+    @Benchmark
+    public Optional<?> verifyCached() {
+        return cached.parseValidClaims(token);
+    }
+
+    @Benchmark
+    public Optional<?> verifyUncached() {
+        return uncached.parseValidClaims(token);
+    }
+}
@@ -0,0 +1,70 @@
+package com.Chatop.API.benchmarks;
+
+import com.Chatop.API.security.JwtAuthenticationFilter;
+import com.Chatop.API.security.JwtService;
+import jakarta.servlet.FilterChain;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.HttpHeaders;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Chemin complet de {@link JwtAuthenticationFilter} pour une requête authentifiée :
+ * lecture de l'en-tête, vérification du token, construction du principal.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class JwtFilterBenchmark {
+
+    private static final FilterChain NO_OP = (request, response) -> {
+    };
+
+    /**
+     * Taille du cache des tokens vérifiés (0 = vérification de la signature à chaque requête).
+     */
+    @Param({"0", "10000"})
+    public int verifiedCacheSize;
+
+    private JwtAuthenticationFilter filter;
+    private MockHttpServletRequest request;
+
+    @Setup
+    public void setup() {
+        JwtService jwtService = Fixtures.jwtService(verifiedCacheSize);
+        filter = new JwtAuthenticationFilter(jwtService);
+        String token = jwtService.generateToken("bench@chatop.com", Map.of("userId", 42L, "name", "Bench User"));
+        request = new MockHttpServletRequest("GET", "/api/rentals");
+        request.addHeader(HttpHeaders.AUTHORIZATION, "Bearer " + token);
+    }
+
+    @Benchmark
+    public Authentication authenticate() throws Exception {
+        // L'attribut "déjà filtré" de OncePerRequestFilter est retiré pour rejouer la même requête.
+        request.clearAttributes();
+        try {
+            filter.doFilter(request, new MockHttpServletResponse(), NO_OP);
+            return SecurityContextHolder.getContext().getAuthentication();
+        } finally {
+            SecurityContextHolder.clearContext();
+        }
+    }
+}
@@ -0,0 +1,66 @@
+package com.Chatop.API.benchmarks;
+
+import com.Chatop.API.service.RentalListCache;
+import com.Chatop.API.service.RentalListWriter;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Construction de la réponse de {@code GET /api/rentals} par le code de production : {@link RentalListWriter}
+ * (flux de lignes → JSON) et reconstruction de {@link RentalListCache} (JSON brut et gzip).
+ * Le dépôt est remplacé par un flux de DTO déjà projetés : la requête SQL n'est pas mesurée.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class RentalsSerializationBenchmark {
+
+    @Param({"10", "1000", "100000"})
+    public int rentals;
+
+    private RentalListWriter writer;
+    private RentalListCache cache;
+
+    @Setup
+    public void setup() {
+        // Même configuration que l'ObjectMapper de Spring Boot (dates ISO-8601, modules Java 8)
+        writer = Fixtures.rentalListWriter(Fixtures.rentalResponses(rentals), Jackson2ObjectMapperBuilder.json().build());
+        cache = new RentalListCache(writer);
+    }
+
+    /**
+     * Réponse en flux, non mise en cache.
+     */
+    @Benchmark
+    public int write() throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        writer.write(out);
+        return out.size();
+    }
+
+    /**
+     * Reconstruction du cache après une écriture : JSON puis compression gzip.
+     */
+    @Benchmark
+    public RentalListCache.Snapshot rebuildCache() {
+        cache.invalidate();
+        return cache.get();
+    }
+}
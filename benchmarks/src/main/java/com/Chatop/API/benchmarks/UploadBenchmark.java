@@ -0,0 +1,85 @@
+package com.Chatop.API.benchmarks;
+
+import com.Chatop.API.service.FileStorageService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Copie d'un upload sur disque par {@link FileStorageService#store} : contenu nouveau
+ * (écriture, empreinte SHA-256, fsync, renommage) ou déjà stocké (dédupliqué).
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class UploadBenchmark {
+
+    @Param({"65536", "1048576"})
+    public int size;
+
+    private Path dir;
+    private FileStorageService storage;
+    private byte[] payload;
+    private long counter;
+
+    @Setup
+    public void setup() throws IOException {
+        dir = Files.createTempDirectory("chatop-upload-bench");
+        storage = Fixtures.fileStorageService(dir);
+        payload = new byte[size];
+        new Random(42).nextBytes(payload);
+    }
+
+    @TearDown(Level.Iteration)
+    public void clean() throws IOException {
+        try (Stream<Path> files = Files.list(dir)) {
+            for (Path f : (Iterable<Path>) files::iterator) {
+                Files.deleteIfExists(f);
+            }
+        }
+    }
+
+    @TearDown
+    public void deleteDir() throws IOException {
+        try (Stream<Path> files = Files.walk(dir)) {
+            for (Path f : (Iterable<Path>) files.sorted(Comparator.reverseOrder())::iterator) {
+                Files.deleteIfExists(f);
+            }
+        }
+    }
+
+    @Benchmark
+    public String storeNew() throws IOException {
+        // Les 8 premiers octets changent à chaque appel : contenu (donc empreinte) toujours nouveau
+        ByteBuffer.wrap(payload).putLong(0, counter++);
+        return storage.store(new ByteArrayInputStream(payload), "picture.jpg");
+    }
+
+    @Benchmark
+    public String storeDuplicate() throws IOException {
+        return storage.store(new ByteArrayInputStream(payload), "picture.jpg");
+    }
+}
@@ -2,8 +2,12 @@ package com.Chatop.API;
 
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.boot.autoconfigure.security.servlet.UserDetailsServiceAutoConfiguration;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
-@SpringBootApplication
+// Pas d'utilisateurs en mémoire : la connexion est vérifiée par AuthService, les requêtes par le filtre JWT
+@SpringBootApplication(exclude = UserDetailsServiceAutoConfiguration.class)
+@EnableScheduling
 public class ApiApplication {
 
 	public static void main(String[] args) {
@@ -0,0 +1,100 @@
+package com.Chatop.API.config;
+
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.Resource;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpOutputMessage;
+import org.springframework.http.converter.HttpMessageNotWritableException;
+import org.springframework.http.converter.ResourceHttpMessageConverter;
+import org.springframework.http.server.ServletServerHttpResponse;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+import org.springframework.web.servlet.resource.ResourceHttpRequestHandler;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.regex.Pattern;
+
+/**
+ * Sert les images uploadées. Un nom de fichier ne change jamais de contenu, d'où :
+ * <ul>
+ *     <li>{@code Cache-Control: public, max-age=1 an, immutable} ;</li>
+ *     <li>un ETag fort (l'empreinte SHA-256 contenue dans le nom pour les fichiers adressés par contenu,
+ *     sinon date de modification et taille) et {@code Last-Modified}, avec réponse 304 ;</li>
+ *     <li>les requêtes {@code Range} (206), gérées par {@link ResourceHttpRequestHandler} ;</li>
+ *     <li>un envoi sans copie ({@code sendfile}) des fichiers complets quand le conteneur le permet.</li>
+ * </ul>
+ */
+public class ImageResourceHandler extends ResourceHttpRequestHandler {
+
+    static final String SENDFILE_SUPPORTED_ATTR = "org.apache.tomcat.sendfile.support";
+    static final String SENDFILE_FILENAME_ATTR = "org.apache.tomcat.sendfile.filename";
+    static final String SENDFILE_START_ATTR = "org.apache.tomcat.sendfile.start";
+    static final String SENDFILE_END_ATTR = "org.apache.tomcat.sendfile.end";
+
+    /**
+     * En dessous de cette taille, une copie classique coûte moins cher que sendfile (même seuil que Tomcat).
+     */
+    static final long SENDFILE_MIN_SIZE = 48 * 1024;
+
+    private static final Pattern SHA256_HEX = Pattern.compile("[0-9a-f]{64}");
+
+    public ImageResourceHandler(Path directory) {
+        setLocations(List.of(new FileSystemResource(directory.toAbsolutePath().normalize() + File.separator)));
+        setCacheControl(CacheControl.maxAge(Duration.ofDays(365)).cachePublic().immutable());
+        setEtagGenerator(ImageResourceHandler::etag);
+        setResourceHttpMessageConverter(new SendfileResourceHttpMessageConverter());
+    }
+
+    static String etag(Resource resource) {
+        String filename = resource.getFilename();
+        if (filename != null) {
+            int dot = filename.lastIndexOf('.');
+            String stem = dot > 0 ? filename.substring(0, dot) : filename;
+            if (SHA256_HEX.matcher(stem).matches()) {
+                return "\"" + stem + "\"";
+            }
+        }
+        try {
+            return "\"" + Long.toHexString(resource.lastModified()) + "-" + Long.toHexString(resource.contentLength()) + "\"";
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Délègue l'envoi des fichiers complets à Tomcat (sendfile) au lieu de les recopier dans le flux de réponse.
+     * Les en-têtes (dont Content-Length) sont déjà positionnés ; le corps n'est alors pas écrit par l'application.
+     */
+    static class SendfileResourceHttpMessageConverter extends ResourceHttpMessageConverter {
+
+        @Override
+        protected void writeContent(Resource resource, HttpOutputMessage outputMessage)
+                throws IOException, HttpMessageNotWritableException {
+            HttpServletRequest request = currentRequest();
+            if (request != null && outputMessage instanceof ServletServerHttpResponse
+                    && resource.isFile()
+                    && Boolean.TRUE.equals(request.getAttribute(SENDFILE_SUPPORTED_ATTR))) {
+                File file = resource.getFile();
+                long length = file.length();
+                if (length >= SENDFILE_MIN_SIZE) {
+                    request.setAttribute(SENDFILE_FILENAME_ATTR, file.getCanonicalPath());
+                    request.setAttribute(SENDFILE_START_ATTR, 0L);
+                    request.setAttribute(SENDFILE_END_ATTR, length);
+                    return;
+                }
+            }
+            super.writeContent(resource, outputMessage);
+        }
+
+        private static HttpServletRequest currentRequest() {
+            RequestAttributes attributes = RequestContextHolder.getRequestAttributes();
+            return attributes instanceof ServletRequestAttributes servlet ? servlet.getRequest() : null;
+        }
+    }
+}
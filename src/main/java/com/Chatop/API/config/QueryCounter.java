@@ -0,0 +1,40 @@
+package com.Chatop.API.config;
+
+import org.hibernate.cfg.AvailableSettings;
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+
+/**
+ * Compte les requêtes SQL préparées par Hibernate, par thread. Enregistré comme {@link StatementInspector}
+ * de la session factory ; les requêtes passées hors Hibernate (JdbcTemplate) ne sont pas comptées.
+ * <p>
+ * Le compteur ne fait qu'augmenter : le nombre de requêtes d'un traitement est la différence entre
+ * deux lectures de {@link #current()} sur le même thread, ce qui permet d'imbriquer les mesures
+ * (filtre HTTP et assertions des tests).
+ */
+@Component
+public class QueryCounter implements StatementInspector, HibernatePropertiesCustomizer {
+
+    private final ThreadLocal<long[]> count = ThreadLocal.withInitial(() -> new long[1]);
+
+    @Override
+    public void customize(Map<String, Object> hibernateProperties) {
+        hibernateProperties.put(AvailableSettings.STATEMENT_INSPECTOR, this);
+    }
+
+    @Override
+    public String inspect(String sql) {
+        count.get()[0]++;
+        return sql;
+    }
+
+    /**
+     * @return le nombre de requêtes préparées sur le thread courant depuis son démarrage
+     */
+    public long current() {
+        return count.get()[0];
+    }
+}
@@ -0,0 +1,76 @@
+package com.Chatop.API.config;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.io.IOException;
+
+/**
+ * Mesure le nombre de requêtes SQL par requête HTTP ({@code http.server.queries}),
+ * avec les mêmes tags {@code method} / {@code uri} (modèle de route) que {@code http.server.requests}.
+ * <p>
+ * Au-delà du budget {@code app.query-budget.max-statements}, la requête est journalisée et comptée dans
+ * {@code http.server.queries.over.budget} : c'est en général le signe d'un N+1 (association LAZY chargée ligne par ligne).
+ * Le nombre de requêtes est aussi déposé dans l'attribut {@link #QUERY_COUNT_ATTRIBUTE} de la requête.
+ */
+@Slf4j
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE)
+@RequiredArgsConstructor
+public class QueryMetricsFilter extends OncePerRequestFilter {
+
+    public static final String QUERY_COUNT_ATTRIBUTE = QueryMetricsFilter.class.getName() + ".queryCount";
+
+    private final QueryCounter queryCounter;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${app.query-budget.enabled:true}")
+    private boolean budgetEnabled;
+
+    @Value("${app.query-budget.max-statements:10}")
+    private int maxStatements;
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request,
+                                    HttpServletResponse response,
+                                    FilterChain filterChain) throws ServletException, IOException {
+        long before = queryCounter.current();
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            long queries = queryCounter.current() - before;
+            request.setAttribute(QUERY_COUNT_ATTRIBUTE, queries);
+
+            Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+            String uri = pattern != null ? pattern.toString() : "UNKNOWN";
+            DistributionSummary.builder("http.server.queries")
+                    .tag("method", request.getMethod())
+                    .tag("uri", uri)
+                    .register(meterRegistry)
+                    .record(queries);
+
+            if (budgetEnabled && queries > maxStatements) {
+                Counter.builder("http.server.queries.over.budget")
+                        .tag("method", request.getMethod())
+                        .tag("uri", uri)
+                        .register(meterRegistry)
+                        .increment();
+                log.warn("{} {} executed {} SQL statements (budget {})",
+                        request.getMethod(), request.getRequestURI(), queries, maxStatements);
+            }
+        }
+    }
+}
@@ -0,0 +1,201 @@
+package com.Chatop.API.config;
+
+import com.Chatop.API.security.AuthenticatedUser;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Aiguille chaque connexion vers le primaire ou la réplique :
+ * <ul>
+ *     <li>transaction {@code readOnly} → réplique ;</li>
+ *     <li>tout le reste (transaction en écriture, accès hors transaction) → primaire.</li>
+ * </ul>
+ * Lecture de ses propres écritures : pendant {@code readYourWritesWindow} après une transaction validée qui a
+ * réellement modifié des données (insert, update, delete…), les lectures du même utilisateur restent sur le
+ * primaire, le temps que la réplication rattrape. Hors utilisateur authentifié (traitements de fond, inscription),
+ * c'est le thread qui est suivi ; un thread de requête réutilisé par un autre utilisateur n'en hérite donc pas.
+ * Les transactions en écriture qui ne font que lire (lectures forcées sur le primaire) ne comptent pas.
+ * Ce suivi est propre à chaque instance.
+ * <p>
+ * Si la réplique ne répond pas, les lectures basculent sur le primaire et la réplique n'est
+ * retentée qu'après {@code replicaRetryInterval}.
+ * <p>
+ * Le choix se fait à l'obtention de la connexion : la source doit être enveloppée dans une
+ * {@link org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy}, pour que la connexion ne soit
+ * obtenue qu'à la première requête, une fois le caractère {@code readOnly} de la transaction connu.
+ */
+@Slf4j
+public class ReadWriteRoutingDataSource extends AbstractRoutingDataSource {
+
+    enum Route {
+        PRIMARY,
+        REPLICA
+    }
+
+    private static final int MAX_TRACKED_USERS = 10_000;
+
+    private final long readYourWritesMillis;
+    private final long replicaRetryMillis;
+
+    private final Map<Long, Long> lastWriteByUser = new ConcurrentHashMap<>();
+    private final ThreadLocal<long[]> lastWriteOnThread = ThreadLocal.withInitial(() -> new long[1]);
+    private volatile long replicaDownUntil;
+
+    public ReadWriteRoutingDataSource(DataSource primary, DataSource replica,
+                                      Duration readYourWritesWindow, Duration replicaRetryInterval) {
+        this.readYourWritesMillis = readYourWritesWindow.toMillis();
+        this.replicaRetryMillis = replicaRetryInterval.toMillis();
+        setTargetDataSources(Map.of(Route.PRIMARY, primary, Route.REPLICA, replica));
+        setDefaultTargetDataSource(primary);
+        afterPropertiesSet();
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        if (!TransactionSynchronizationManager.isActualTransactionActive()
+                || !TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+            return Route.PRIMARY;
+        }
+        long now = System.currentTimeMillis();
+        if (now < replicaDownUntil || wroteRecently(currentUserId(), now)) {
+            return Route.PRIMARY;
+        }
+        return Route.REPLICA;
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        Object route = determineCurrentLookupKey();
+        if (route == Route.PRIMARY) {
+            return trackWrites(primary().getConnection());
+        }
+        try {
+            return replica().getConnection();
+        } catch (SQLException e) {
+            markReplicaDown(e);
+            return primary().getConnection();
+        }
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        Object route = determineCurrentLookupKey();
+        if (route == Route.PRIMARY) {
+            return trackWrites(primary().getConnection(username, password));
+        }
+        try {
+            return replica().getConnection(username, password);
+        } catch (SQLException e) {
+            markReplicaDown(e);
+            return primary().getConnection(username, password);
+        }
+    }
+
+    /**
+     * Dans une transaction en écriture, enveloppe la connexion pour repérer les requêtes qui modifient des données ;
+     * si la transaction en a exécuté une, l'écriture est enregistrée à sa validation.
+     */
+    private Connection trackWrites(Connection connection) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()
+                || TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+            return connection;
+        }
+        Long userId = currentUserId();
+        AtomicBoolean modified = new AtomicBoolean();
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                if (modified.get()) {
+                    recordWrite(userId, System.currentTimeMillis());
+                }
+            }
+        });
+        return track(connection, Connection.class, modified);
+    }
+
+    /**
+     * La requête est connue à la préparation ({@code prepareStatement}) ou, pour un {@code Statement} simple,
+     * à l'exécution ; les procédures stockées sont comptées comme écritures.
+     */
+    private static <T> T track(T target, Class<T> type, AtomicBoolean modified) {
+        return type.cast(Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[]{type}, (proxy, method, args) -> {
+            String name = method.getName();
+            if (name.equals("prepareCall")
+                    || (args != null && args.length > 0 && args[0] instanceof String sql && !name.equals("executeQuery")
+                    && (name.startsWith("prepare") || name.startsWith("execute") || name.equals("addBatch"))
+                    && modifiesData(sql))) {
+                modified.set(true);
+            }
+            Object result;
+            try {
+                result = method.invoke(target, args);
+            } catch (InvocationTargetException e) {
+                throw e.getCause();
+            }
+            return name.equals("createStatement") ? track((Statement) result, Statement.class, modified) : result;
+        }));
+    }
+
+    static boolean modifiesData(String sql) {
+        String s = sql.stripLeading();
+        while (s.startsWith("/*") && s.contains("*/")) {
+            s = s.substring(s.indexOf("*/") + 2).stripLeading();
+        }
+        String verb = s.length() >= 7 ? s.substring(0, 7).toLowerCase(Locale.ROOT) : s.toLowerCase(Locale.ROOT);
+        return verb.startsWith("insert") || verb.startsWith("update") || verb.startsWith("delete")
+                || verb.startsWith("merge") || verb.startsWith("replace");
+    }
+
+    private DataSource primary() {
+        return getResolvedDataSources().get(Route.PRIMARY);
+    }
+
+    private DataSource replica() {
+        return getResolvedDataSources().get(Route.REPLICA);
+    }
+
+    private void markReplicaDown(SQLException e) {
+        replicaDownUntil = System.currentTimeMillis() + replicaRetryMillis;
+        log.warn("Read replica unavailable, reading from primary for {} ms: {}", replicaRetryMillis, e.getMessage());
+    }
+
+    private void recordWrite(Long userId, long now) {
+        if (userId == null) {
+            lastWriteOnThread.get()[0] = now;
+            return;
+        }
+        if (lastWriteByUser.size() >= MAX_TRACKED_USERS) {
+            lastWriteByUser.values().removeIf(t -> now - t >= readYourWritesMillis);
+        }
+        lastWriteByUser.put(userId, now);
+    }
+
+    private boolean wroteRecently(Long userId, long now) {
+        if (userId == null) {
+            return now - lastWriteOnThread.get()[0] < readYourWritesMillis;
+        }
+        Long last = lastWriteByUser.get(userId);
+        return last != null && now - last < readYourWritesMillis;
+    }
+
+    private static Long currentUserId() {
+        Authentication auth = SecurityContextHolder.getContext().getAuthentication();
+        return auth != null && auth.getPrincipal() instanceof AuthenticatedUser user ? user.id() : null;
+    }
+}
@@ -0,0 +1,27 @@
+package com.Chatop.API.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.flyway.FlywayMigrationStrategy;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Migrations Flyway au démarrage. {@code app.schema.migrate-on-startup=false} démarre sans toucher à la base :
+ * utilisé pour l'exécution d'entraînement qui produit l'archive CDS (profil Maven {@code fast-startup}),
+ * ou quand les migrations sont appliquées par un job séparé avant le déploiement.
+ */
+@Configuration
+public class SchemaMigrationConfig {
+
+    @Value("${app.schema.migrate-on-startup:true}")
+    private boolean migrateOnStartup;
+
+    @Bean
+    public FlywayMigrationStrategy flywayMigrationStrategy() {
+        return flyway -> {
+            if (migrateOnStartup) {
+                flyway.migrate();
+            }
+        };
+    }
+}
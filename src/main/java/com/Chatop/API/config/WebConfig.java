@@ -1,12 +1,14 @@
 package com.Chatop.API.config;
 
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
-import org.springframework.web.servlet.config.annotation.ResourceHandlerRegistry;
+import org.springframework.core.Ordered;
 import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+import org.springframework.web.servlet.handler.SimpleUrlHandlerMapping;
 
-import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.util.Map;
 
 @Configuration
 public class WebConfig implements WebMvcConfigurer {
@@ -17,11 +19,18 @@ public class WebConfig implements WebMvcConfigurer {
     @Value("${app.upload.public-base-url:/images}")
     private String publicBaseUrl;
 
-    @Override
-    public void addResourceHandlers(ResourceHandlerRegistry registry) {
-        Path dir = Paths.get(uploadDir).toAbsolutePath().normalize();
-        String location = "file:" + dir + "/";
-        registry.addResourceHandler(publicBaseUrl + "/**")
-                .addResourceLocations(location);
+    @Bean
+    public ImageResourceHandler imageResourceHandler() {
+        return new ImageResourceHandler(Paths.get(uploadDir));
+    }
+
+    /**
+     * Mapping des images uploadées, évalué après les contrôleurs comme les resource handlers standards.
+     */
+    @Bean
+    public SimpleUrlHandlerMapping imageHandlerMapping(ImageResourceHandler imageResourceHandler) {
+        SimpleUrlHandlerMapping mapping = new SimpleUrlHandlerMapping(Map.of(publicBaseUrl + "/**", imageResourceHandler));
+        mapping.setOrder(Ordered.LOWEST_PRECEDENCE - 2);
+        return mapping;
     }
 }
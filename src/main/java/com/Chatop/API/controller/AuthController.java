@@ -4,13 +4,15 @@ import com.Chatop.API.dto.auth.AuthResponse;
 import com.Chatop.API.dto.auth.LoginRequest;
 import com.Chatop.API.dto.auth.RegisterRequest;
 import com.Chatop.API.dto.user.UserResponse;
-import com.Chatop.API.model.User;
-import com.Chatop.API.repository.UserRepository;
+import com.Chatop.API.security.AuthenticatedUser;
+import com.Chatop.API.security.CurrentUser;
 import com.Chatop.API.service.AuthService;
+import com.Chatop.API.service.UserService;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
-import org.springframework.security.core.Authentication;
+import org.springframework.http.HttpStatus;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ResponseStatusException;
 
 /**
  * Contrôleur gérant l'authentification et l'inscription des utilisateurs.
@@ -23,7 +25,7 @@ import org.springframework.web.bind.annotation.*;
 public class AuthController {
 
     private final AuthService authService;
-    private final UserRepository userRepository;
+    private final UserService userService;
 
     /**
      * Permet de créer un nouveau compte utilisateur.
@@ -50,19 +52,13 @@ public class AuthController {
     /**
      * Récupère les informations du profil de l'utilisateur actuellement authentifié.
      *
-     * @param authentication Objet Spring Security contenant les informations de l'utilisateur connecté
+     * @param currentUser Utilisateur connecté, issu du token JWT
      * @return UserResponse contenant les informations du profil utilisateur
+     * @throws ResponseStatusException 401 si le compte a été supprimé depuis l'émission du token
      */
     @GetMapping("/me")
-    public UserResponse me(Authentication authentication) {
-        String email = authentication.getName();
-        User u = userRepository.findByEmail(email).orElseThrow();
-        return UserResponse.builder()
-                .id(u.getId())
-                .name(u.getName())
-                .email(u.getEmail())
-                .createdAt(u.getCreatedAt())
-                .updatedAt(u.getUpdatedAt())
-                .build();
+    public UserResponse me(@CurrentUser AuthenticatedUser currentUser) {
+        return userService.getCachedUserResponse(currentUser.id())
+                .orElseThrow(() -> new ResponseStatusException(HttpStatus.UNAUTHORIZED, "User not found"));
     }
 }
@@ -2,18 +2,21 @@ package com.Chatop.API.controller;
 
 import com.Chatop.API.dto.common.SimpleMessageResponse;
 import com.Chatop.API.dto.message.MessageRequest;
-import com.Chatop.API.model.Message;
-import com.Chatop.API.model.Rental;
-import com.Chatop.API.model.User;
+import com.Chatop.API.dto.message.MessageResponse;
+import com.Chatop.API.dto.message.MessagesPageResponse;
 import com.Chatop.API.repository.RentalRepository;
-import com.Chatop.API.repository.UserRepository;
+import com.Chatop.API.security.AuthenticatedUser;
+import com.Chatop.API.security.CurrentUser;
+import com.Chatop.API.service.KeysetPage;
 import com.Chatop.API.service.MessageService;
+import com.Chatop.API.service.MessageStreamBroker;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.HttpStatus;
-import org.springframework.security.core.Authentication;
+import org.springframework.http.MediaType;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
 /**
  * Contrôleur gérant l'envoi de messages entre utilisateurs concernant une location.
@@ -23,42 +26,103 @@ import org.springframework.web.server.ResponseStatusException;
 @RequiredArgsConstructor
 public class MessageController {
 
+    private static final int DEFAULT_PAGE_SIZE = 20;
+    private static final int MAX_PAGE_SIZE = 100;
+
     private final MessageService messageService;
-    private final UserRepository userRepository;
+    private final MessageStreamBroker messageStreamBroker;
     private final RentalRepository rentalRepository;
 
     /**
      * Permet à un utilisateur authentifié d'envoyer un message à propos d'une location.
      *
      * @param request Données du message (contenu, identifiant de la location, utilisateur)
-     * @param authentication Informations de l'utilisateur connecté
+     * @param currentUser Utilisateur connecté, issu du token JWT
      * @return SimpleMessageResponse indiquant que le message a bien été envoyé
+     * @throws ResponseStatusException 429 si la file d'ingestion des messages est pleine (mode write-behind)
      */
     @PostMapping("/messages")
-    public SimpleMessageResponse create(@Valid @RequestBody MessageRequest request, Authentication authentication) {
-
-        // Récupération de l'utilisateur actuellement connecté
-        User currentUser = userRepository.findByEmail(authentication.getName())
-                .orElseThrow(() -> new ResponseStatusException(HttpStatus.UNAUTHORIZED, "error"));
+    public SimpleMessageResponse create(@Valid @RequestBody MessageRequest request,
+                                        @CurrentUser AuthenticatedUser currentUser) {
 
         // Vérifie que l'utilisateur ne tente pas d'envoyer un message au nom d'un autre utilisateur
-        if (request.getUser_id() != null && !request.getUser_id().equals(currentUser.getId())) {
+        if (request.getUser_id() != null && !request.getUser_id().equals(currentUser.id())) {
             throw new ResponseStatusException(HttpStatus.FORBIDDEN, "error");
         }
 
-        // Vérifie que la location ciblée existe
-        Rental r = rentalRepository.findById(request.getRental_id())
+        // Vérifie que la location ciblée existe (et récupère son propriétaire, destinataire du message)
+        Long ownerId = rentalRepository.findOwnerIdById(request.getRental_id())
                 .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Rental not found"));
 
-        // Création du message
-        Message m = new Message();
-        m.setUser(currentUser);
-        m.setRental(r);
-        m.setMessage(request.getMessage());
-
-        // Sauvegarde du message en base
-        messageService.save(m);
+        // Enregistrement du message (immédiat, ou mis en file en mode write-behind)
+        messageService.send(request.getRental_id(), ownerId, currentUser.id(), request.getMessage());
 
         return new SimpleMessageResponse("Message send with success");
     }
+
+    /**
+     * Récupère les messages reçus sur une location, du plus récent au plus ancien (pagination par curseur).
+     * Réservé au propriétaire de la location.
+     *
+     * @param id Identifiant de la location
+     * @param limit Nombre maximal de messages renvoyés (1 à 100, 20 par défaut)
+     * @param after Curseur {@code next_cursor} de la page précédente
+     * @param currentUser Utilisateur connecté, issu du token JWT
+     * @return MessagesPageResponse contenant la page et le curseur de la page suivante
+     * @throws ResponseStatusException 404 si la location n'existe pas, 403 si l'utilisateur n'en est pas le propriétaire
+     * @throws IllegalArgumentException 400 si la taille de page ou le curseur sont invalides
+     */
+    @GetMapping("/rentals/{id}/messages")
+    public MessagesPageResponse rentalMessages(@PathVariable Long id,
+                                               @RequestParam(value = "limit", defaultValue = "" + DEFAULT_PAGE_SIZE) int limit,
+                                               @RequestParam(value = "after", required = false) String after,
+                                               @CurrentUser AuthenticatedUser currentUser) {
+        Long ownerId = rentalRepository.findOwnerIdById(id)
+                .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Rental not found"));
+        if (!ownerId.equals(currentUser.id())) {
+            throw new ResponseStatusException(HttpStatus.FORBIDDEN, "error");
+        }
+        return toResponse(messageService.getRentalMessages(id, after, pageSize(limit)));
+    }
+
+    /**
+     * Récupère la boîte de réception de l'utilisateur connecté : les messages reçus sur toutes ses locations,
+     * du plus récent au plus ancien (pagination par curseur).
+     *
+     * @param limit Nombre maximal de messages renvoyés (1 à 100, 20 par défaut)
+     * @param after Curseur {@code next_cursor} de la page précédente
+     * @param currentUser Utilisateur connecté, issu du token JWT
+     * @return MessagesPageResponse contenant la page et le curseur de la page suivante
+     * @throws IllegalArgumentException 400 si la taille de page ou le curseur sont invalides
+     */
+    @GetMapping("/messages/inbox")
+    public MessagesPageResponse inbox(@RequestParam(value = "limit", defaultValue = "" + DEFAULT_PAGE_SIZE) int limit,
+                                      @RequestParam(value = "after", required = false) String after,
+                                      @CurrentUser AuthenticatedUser currentUser) {
+        return toResponse(messageService.getInbox(currentUser.id(), after, pageSize(limit)));
+    }
+
+    /**
+     * Ouvre un flux Server-Sent Events sur lequel l'utilisateur connecté reçoit, en temps réel, les messages
+     * envoyés sur ses locations (événements {@code message}), ainsi que des heartbeats périodiques.
+     *
+     * @param currentUser Utilisateur connecté, issu du token JWT
+     * @return SseEmitter du flux
+     * @throws ResponseStatusException 429 si l'utilisateur a déjà trop de flux ouverts
+     */
+    @GetMapping(value = "/messages/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter stream(@CurrentUser AuthenticatedUser currentUser) {
+        return messageStreamBroker.subscribe(currentUser.id());
+    }
+
+    private static int pageSize(int limit) {
+        if (limit < 1) {
+            throw new IllegalArgumentException("Invalid limit");
+        }
+        return Math.min(limit, MAX_PAGE_SIZE);
+    }
+
+    private static MessagesPageResponse toResponse(KeysetPage<MessageResponse> page) {
+        return new MessagesPageResponse(page.items(), page.nextCursor());
+    }
 }
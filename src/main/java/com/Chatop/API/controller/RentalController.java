@@ -1,178 +1,389 @@
 package com.Chatop.API.controller;
 
 import com.Chatop.API.dto.common.SimpleMessageResponse;
+import com.Chatop.API.dto.rental.RentalFormRequest;
 import com.Chatop.API.dto.rental.RentalResponse;
+import com.Chatop.API.dto.rental.RentalsBatchResponse;
+import com.Chatop.API.dto.rental.RentalsPageResponse;
 import com.Chatop.API.dto.rental.RentalsResponse;
 import com.Chatop.API.model.Rental;
-import com.Chatop.API.model.User;
-import com.Chatop.API.repository.UserRepository;
-import com.Chatop.API.service.FileStorageService;
+import com.Chatop.API.security.AuthenticatedUser;
+import com.Chatop.API.security.CurrentUser;
+import com.Chatop.API.service.BatchResult;
+import com.Chatop.API.service.ImageDerivativeService;
+import com.Chatop.API.service.KeysetPage;
+import com.Chatop.API.service.RentalFormReader;
+import com.Chatop.API.service.RentalListCache;
+import com.Chatop.API.service.RentalListWriter;
 import com.Chatop.API.service.RentalService;
-import jakarta.validation.constraints.NotBlank;
-import jakarta.validation.constraints.NotNull;
+import com.Chatop.API.service.RentalSort;
+import com.Chatop.API.service.UserService;
+import io.swagger.v3.oas.annotations.media.Content;
+import io.swagger.v3.oas.annotations.media.Schema;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
-import org.springframework.security.core.Authentication;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
-import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.context.request.WebRequest;
 import org.springframework.web.server.ResponseStatusException;
 
 import java.io.IOException;
+import java.time.Instant;
 import java.util.List;
-import java.util.stream.StreamSupport;
+import java.util.Locale;
+import java.util.zip.GZIPOutputStream;
 
 /**
  * Contrôleur gérant les endpoints liés aux locations (rentals) :
  * - consultation de la liste des locations
  * - consultation du détail d'une location
  * - création et mise à jour d'une location (avec upload d'image)
+ * Les déclinaisons redimensionnées de l'image sont générées en tâche de fond après l'enregistrement.
  */
 @RestController
 @RequestMapping("/api")
 @RequiredArgsConstructor
 public class RentalController {
 
+    private static final int MAX_PAGE_SIZE = 100;
+    private static final int MAX_BATCH_SIZE = 1000;
+    private static final int STREAM_BUFFER_SIZE = 8192;
+
     private final RentalService rentalService;
-    private final UserRepository userRepository;
-    private final FileStorageService fileStorageService;
+    private final UserService userService;
+    private final RentalFormReader rentalFormReader;
+    private final ImageDerivativeService imageDerivativeService;
+    private final RentalListCache rentalListCache;
+    private final RentalListWriter rentalListWriter;
+
+    @Value("${app.rentals.list.mode:cached}")
+    private String listMode;
 
     /**
      * Récupère la liste de toutes les locations disponibles.
+     * La réponse sérialisée est mise en cache (brute et gzip) et porte un ETag : une requête
+     * {@code If-None-Match} à jour reçoit un 304 sans accès à la base.
+     * <p>
+     * En mode {@code app.rentals.list.mode=streaming}, rien n'est mis en cache : les locations sont lues
+     * par lots et écrites dans la réponse au fil de la lecture, à mémoire constante quelle que soit
+     * la taille du catalogue. L'ETag et le 304 restent inchangés.
      *
+     * @param acceptEncoding En-tête Accept-Encoding, pour servir la variante gzip
+     * @param request Requête courante, pour la gestion des requêtes conditionnelles
+     * @param servletResponse Réponse HTTP, écrite directement en mode streaming
      * @return RentalsResponse contenant la liste des locations au format DTO
      */
     @GetMapping("/rentals")
-    public RentalsResponse list() {
-        List<RentalResponse> rentals = StreamSupport.stream(rentalService.getRentals().spliterator(), false)
-                .map(this::toDto)
-                .toList();
-        return new RentalsResponse(rentals);
+    @ApiResponse(responseCode = "200", content = @Content(
+            mediaType = MediaType.APPLICATION_JSON_VALUE,
+            schema = @Schema(implementation = RentalsResponse.class)))
+    public ResponseEntity<byte[]> list(
+            @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding,
+            WebRequest request,
+            HttpServletResponse servletResponse
+    ) throws IOException {
+        boolean gzip = acceptsGzip(acceptEncoding);
+        String etag = rentalListCache.etag(gzip);
+        if (request.checkNotModified(etag)) {
+            return null;
+        }
+        if ("streaming".equals(listMode)) {
+            stream(servletResponse, etag, gzip);
+            return null;
+        }
+
+        RentalListCache.Snapshot snapshot = rentalListCache.get();
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok()
+                .eTag(etag)
+                .cacheControl(CacheControl.noCache())
+                .varyBy(HttpHeaders.ACCEPT_ENCODING)
+                .contentType(MediaType.APPLICATION_JSON);
+        if (gzip) {
+            return response.header(HttpHeaders.CONTENT_ENCODING, "gzip").body(snapshot.gzip());
+        }
+        return response.body(snapshot.identity());
+    }
+
+    /**
+     * Le client accepte-t-il gzip ? Une entrée {@code gzip} (ou {@code x-gzip}) explicite l'emporte sur
+     * {@code *} ; une valeur {@code q=0} vaut refus.
+     */
+    static boolean acceptsGzip(String acceptEncoding) {
+        if (acceptEncoding == null) {
+            return false;
+        }
+        Double gzip = null;
+        Double any = null;
+        for (String entry : acceptEncoding.split(",")) {
+            String[] parts = entry.split(";");
+            String coding = parts[0].trim().toLowerCase(Locale.ROOT);
+            double q = 1.0;
+            for (int i = 1; i < parts.length; i++) {
+                String param = parts[i].trim();
+                if (param.regionMatches(true, 0, "q=", 0, 2)) {
+                    try {
+                        q = Double.parseDouble(param.substring(2).trim());
+                    } catch (NumberFormatException e) {
+                        q = 0;
+                    }
+                }
+            }
+            if (coding.equals("gzip") || coding.equals("x-gzip")) {
+                gzip = q;
+            } else if (coding.equals("*")) {
+                any = q;
+            }
+        }
+        Double q = gzip != null ? gzip : any;
+        return q != null && q > 0;
+    }
+
+    private void stream(HttpServletResponse response, String etag, boolean gzip) throws IOException {
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        response.setHeader(HttpHeaders.ETAG, etag);
+        response.setHeader(HttpHeaders.CACHE_CONTROL, CacheControl.noCache().getHeaderValue());
+        response.setHeader(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+        if (gzip) {
+            response.setHeader(HttpHeaders.CONTENT_ENCODING, "gzip");
+            try (GZIPOutputStream out = new GZIPOutputStream(response.getOutputStream(), STREAM_BUFFER_SIZE)) {
+                rentalListWriter.write(out);
+            }
+        } else {
+            rentalListWriter.write(response.getOutputStream());
+        }
+    }
+
+    /**
+     * Récupère une page de locations (pagination par curseur). Activé par la présence du paramètre
+     * {@code limit} ; sans lui, {@link #list()} renvoie la liste complète comme auparavant.
+     *
+     * @param limit Nombre maximal de locations renvoyées (1 à 100)
+     * @param after Curseur {@code next_cursor} de la page précédente (pour le tri par id, l'id de la dernière location)
+     * @param sort Critère de tri : {@code id} (défaut), {@code price} ou {@code created_at}
+     * @param minPrice Prix minimal (inclus), optionnel
+     * @param maxPrice Prix maximal (inclus), optionnel
+     * @return RentalsPageResponse contenant la page et le curseur de la page suivante
+     * @throws IllegalArgumentException 400 si le tri, la taille de page ou le curseur sont invalides
+     */
+    @GetMapping(value = "/rentals", params = "limit")
+    public RentalsPageResponse page(
+            @RequestParam("limit") int limit,
+            @RequestParam(value = "after", required = false) String after,
+            @RequestParam(value = "sort", required = false) String sort,
+            @RequestParam(value = "minPrice", required = false) Integer minPrice,
+            @RequestParam(value = "maxPrice", required = false) Integer maxPrice
+    ) {
+        if (limit < 1) {
+            throw new IllegalArgumentException("Invalid limit");
+        }
+        KeysetPage<RentalResponse> page = rentalService.getRentalsPage(
+                RentalSort.fromParam(sort), after, Math.min(limit, MAX_PAGE_SIZE), minPrice, maxPrice);
+        return new RentalsPageResponse(page.items(), page.nextCursor());
+    }
+
+    /**
+     * Récupère le détail de plusieurs locations en une seule requête HTTP (et une requête SQL par tranche
+     * de 500 ids). Activé par la présence du paramètre {@code ids}.
+     *
+     * @param ids Identifiants des locations, séparés par des virgules (1000 au plus)
+     * @return RentalsBatchResponse : une entrée par id, dans l'ordre demandé ({@code null} si la location
+     * n'existe pas), et la liste {@code not_found} des ids introuvables
+     * @throws IllegalArgumentException 400 si un id est vide ou s'il y a trop d'ids
+     */
+    @GetMapping(value = "/rentals", params = {"ids", "!limit"})
+    public RentalsBatchResponse batch(@RequestParam("ids") List<Long> ids) {
+        if (ids.size() > MAX_BATCH_SIZE) {
+            throw new IllegalArgumentException("Too many ids");
+        }
+        BatchResult<RentalResponse> result = rentalService.getRentalResponses(ids);
+        return new RentalsBatchResponse(result.items(), result.notFound());
+    }
+
+    /**
+     * Recherche des locations par texte (nom et description), fourchettes de prix et de surface.
+     * Servie par un index en mémoire, sans requête en base.
+     *
+     * @param q Mots recherchés ; tous doivent apparaître (début de mot, sans tenir compte des accents ni de la casse)
+     * @param minPrice Prix minimal (inclus), optionnel
+     * @param maxPrice Prix maximal (inclus), optionnel
+     * @param minSurface Surface minimale (incluse), optionnelle
+     * @param maxSurface Surface maximale (incluse), optionnelle
+     * @param sort Tri : {@code id} (défaut), {@code price}, {@code surface} ou {@code created_at}, préfixé de {@code -} pour l'ordre décroissant
+     * @param limit Nombre maximal de locations renvoyées (1 à 100, 20 par défaut)
+     * @param after Curseur {@code next_cursor} de la page précédente
+     * @return RentalsPageResponse contenant la page et le curseur de la page suivante
+     * @throws IllegalArgumentException 400 si le tri, la taille de page ou le curseur sont invalides
+     */
+    @GetMapping("/rentals/search")
+    public RentalsPageResponse search(
+            @RequestParam(value = "q", required = false) String q,
+            @RequestParam(value = "minPrice", required = false) Integer minPrice,
+            @RequestParam(value = "maxPrice", required = false) Integer maxPrice,
+            @RequestParam(value = "minSurface", required = false) Integer minSurface,
+            @RequestParam(value = "maxSurface", required = false) Integer maxSurface,
+            @RequestParam(value = "sort", required = false) String sort,
+            @RequestParam(value = "limit", defaultValue = "20") int limit,
+            @RequestParam(value = "after", required = false) String after
+    ) {
+        if (limit < 1) {
+            throw new IllegalArgumentException("Invalid limit");
+        }
+        KeysetPage<RentalResponse> page = rentalService.searchRentals(
+                q, minPrice, maxPrice, minSurface, maxSurface, sort, after, Math.min(limit, MAX_PAGE_SIZE));
+        return new RentalsPageResponse(page.items(), page.nextCursor());
     }
 
     /**
      * Récupère le détail d'une location à partir de son identifiant.
+     * La réponse porte un ETag et un Last-Modified tirés de {@code updatedAt} : une requête
+     * {@code If-None-Match} / {@code If-Modified-Since} à jour reçoit un 304 après une simple lecture
+     * de la date de modification, sans charger ni sérialiser la location.
      *
      * @param id Identifiant de la location
+     * @param request Requête courante, pour la gestion des requêtes conditionnelles
      * @return RentalResponse correspondant à la location demandée
      * @throws ResponseStatusException 404 si la location n'existe pas
      */
     @GetMapping("/rentals/{id}")
-    public RentalResponse get(@PathVariable Long id) {
-        Rental r = rentalService.getRental(id)
+    @ApiResponse(responseCode = "200", content = @Content(
+            mediaType = MediaType.APPLICATION_JSON_VALUE,
+            schema = @Schema(implementation = RentalResponse.class)))
+    public ResponseEntity<RentalResponse> get(@PathVariable Long id, WebRequest request) {
+        if (VersionTags.isConditionalGet(request)) {
+            Instant version = rentalService.getRentalVersion(id)
+                    .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Rental not found"));
+            if (request.checkNotModified(VersionTags.etag("rental", id, version), version.toEpochMilli())) {
+                return null;
+            }
+            // ETag et Last-Modified sont déjà posés par checkNotModified. Si la location change entre les deux
+            // lectures, l'ETag envoyé est plus ancien que le corps : la prochaine requête recevra un 200, jamais un 304 à tort.
+            RentalResponse rental = rentalService.getRentalResponse(id)
+                    .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Rental not found"));
+            return ResponseEntity.ok().cacheControl(CacheControl.noCache()).body(rental);
+        }
+
+        RentalResponse rental = rentalService.getRentalResponse(id)
                 .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Rental not found"));
-        return toDto(r);
+        return ResponseEntity.ok()
+                .eTag(VersionTags.etag("rental", id, rental.getUpdatedAt()))
+                .lastModified(rental.getUpdatedAt())
+                .cacheControl(CacheControl.noCache())
+                .body(rental);
     }
 
     /**
      * Crée une nouvelle location avec une image (upload multipart/form-data).
+     * Le formulaire est lu en streaming : l'image est écrite sur disque à mesure qu'elle est reçue.
      *
-     * @param name Nom de la location
-     * @param surface Surface de la location (m²)
-     * @param price Prix de la location
-     * @param description Description de la location
-     * @param picture Image associée à la location
-     * @param authentication Informations de l'utilisateur authentifié (propriétaire de la location)
+     * @param request Requête multipart contenant name, surface, price, description et picture
+     * @param currentUser Utilisateur authentifié (propriétaire de la location)
      * @return SimpleMessageResponse indiquant que la location a été créée
-     * @throws ResponseStatusException 401 si l'utilisateur n'est pas authentifié
-     * @throws ResponseStatusException 400 si le fichier ne peut pas être stocké
+     * @throws ResponseStatusException 400 si un champ est invalide ou si le fichier ne peut pas être stocké
+     * @throws ResponseStatusException 413 si l'image dépasse la taille autorisée
      */
     @PostMapping(value = "/rentals", consumes = {"multipart/form-data"})
+    @io.swagger.v3.oas.annotations.parameters.RequestBody(content = @Content(
+            mediaType = MediaType.MULTIPART_FORM_DATA_VALUE,
+            schema = @Schema(implementation = RentalFormRequest.class)))
     public SimpleMessageResponse create(
-            @RequestParam("name") @NotBlank String name,
-            @RequestParam("surface") @NotNull Integer surface,
-            @RequestParam("price") @NotNull Integer price,
-            @RequestParam("description") @NotBlank String description,
-            @RequestPart("picture") MultipartFile picture,
-            Authentication authentication
+            HttpServletRequest request,
+            @CurrentUser AuthenticatedUser currentUser
     ) {
-        try {
-            String email = authentication.getName();
-            User owner = userRepository.findByEmail(email)
-                    .orElseThrow(() -> new ResponseStatusException(HttpStatus.UNAUTHORIZED, "Unauthorized"));
-
-            String pictureUrl = fileStorageService.store(picture);
-
-            Rental r = new Rental();
-            r.setName(name);
-            r.setSurface(surface);
-            r.setPrice(price);
-            r.setDescription(description);
-            r.setPicture(pictureUrl);
-            r.setOwner(owner);
-
-            rentalService.save(r);
-            return new SimpleMessageResponse("Rental created !");
-        } catch (IOException e) {
+        RentalFormReader.RentalForm form = readForm(request);
+        if (form.pictureUrl() == null) {
             throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Could not store file");
         }
+
+        Rental r = new Rental();
+        r.setName(form.name());
+        r.setSurface(form.surface());
+        r.setPrice(form.price());
+        r.setDescription(form.description());
+        r.setPicture(form.pictureUrl());
+        r.setOwner(userService.getUserReference(currentUser.id()));
+
+        Rental saved = rentalService.save(r);
+        imageDerivativeService.submit(saved.getId(), saved.getPicture());
+        return new SimpleMessageResponse("Rental created !");
     }
 
     /**
      * Met à jour une location existante (avec possibilité de remplacer l'image).
-     * Seul le propriétaire de la location est autorisé à la modifier.
+     * Seul le propriétaire de la location est autorisé à la modifier ; le formulaire n'est lu
+     * qu'après cette vérification. Si aucune image n'est envoyée, l'image existante est conservée.
+     * Avec {@code If-Match} (ETag de {@code GET /api/rentals/{id}}) ou {@code If-Unmodified-Since},
+     * une modification faite depuis la lecture du client est refusée avant la lecture du formulaire.
      *
      * @param id Identifiant de la location à modifier
-     * @param name Nouveau nom de la location
-     * @param surface Nouvelle surface (m²)
-     * @param price Nouveau prix
-     * @param description Nouvelle description
-     * @param picture Nouvelle image (optionnelle). Si absente, l'image existante est conservée.
-     * @param authentication Informations de l'utilisateur authentifié
+     * @param request Requête multipart contenant name, surface, price, description et picture (optionnelle)
+     * @param webRequest Requête courante, pour la vérification des préconditions
+     * @param currentUser Utilisateur authentifié, issu du token JWT
      * @return SimpleMessageResponse indiquant que la location a été mise à jour
      * @throws ResponseStatusException 404 si la location n'existe pas
-     * @throws ResponseStatusException 401 si l'utilisateur n'est pas authentifié
      * @throws ResponseStatusException 403 si l'utilisateur n'est pas le propriétaire
-     * @throws ResponseStatusException 400 si le fichier ne peut pas être stocké
+     * @throws ResponseStatusException 412 si la location a été modifiée depuis la version indiquée, ou par une
+     *         autre mise à jour pendant celle-ci
+     * @throws ResponseStatusException 400 si un champ est invalide ou si le fichier ne peut pas être stocké
+     * @throws ResponseStatusException 413 si l'image dépasse la taille autorisée
      */
     @PutMapping(value = "/rentals/{id}", consumes = {"multipart/form-data"})
+    @io.swagger.v3.oas.annotations.parameters.RequestBody(content = @Content(
+            mediaType = MediaType.MULTIPART_FORM_DATA_VALUE,
+            schema = @Schema(implementation = RentalFormRequest.class)))
     public SimpleMessageResponse update(
             @PathVariable Long id,
-            @RequestParam("name") @NotBlank String name,
-            @RequestParam("surface") @NotNull Integer surface,
-            @RequestParam("price") @NotNull Integer price,
-            @RequestParam("description") @NotBlank String description,
-            @RequestPart(value = "picture", required = false) MultipartFile picture,
-            Authentication authentication
+            HttpServletRequest request,
+            WebRequest webRequest,
+            @CurrentUser AuthenticatedUser currentUser
     ) {
         Rental r = rentalService.getRental(id)
                 .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Rental not found"));
 
         // Vérifie que seul le propriétaire peut mettre à jour la location
-        String email = authentication.getName();
-        User current = userRepository.findByEmail(email)
-                .orElseThrow(() -> new ResponseStatusException(HttpStatus.UNAUTHORIZED, "Unauthorized"));
-        if (!r.getOwner().getId().equals(current.getId())) {
+        if (!r.getOwner().getId().equals(currentUser.id())) {
             throw new ResponseStatusException(HttpStatus.FORBIDDEN, "Forbidden");
         }
 
-        r.setName(name);
-        r.setSurface(surface);
-        r.setPrice(price);
-        r.setDescription(description);
+        Instant version = r.getUpdatedAt();
+        if (VersionTags.isConditionalWrite(webRequest)
+                && webRequest.checkNotModified(VersionTags.etag("rental", id, version), version.toEpochMilli())) {
+            throw new ResponseStatusException(HttpStatus.PRECONDITION_FAILED, "Rental has been modified");
+        }
 
-        if (picture != null && !picture.isEmpty()) {
-            try {
-                r.setPicture(fileStorageService.store(picture));
-            } catch (IOException e) {
-                throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Could not store file");
-            }
+        RentalFormReader.RentalForm form = readForm(request);
+        r.setName(form.name());
+        r.setSurface(form.surface());
+        r.setPrice(form.price());
+        r.setDescription(form.description());
+
+        // L'ancienne image n'est pas supprimée ici (elle peut être partagée) : le sweeper s'en charge.
+        boolean pictureReplaced = form.pictureUrl() != null && !form.pictureUrl().equals(r.getPicture());
+        if (pictureReplaced) {
+            r.replacePicture(form.pictureUrl());
         }
 
-        rentalService.save(r);
+        // Écriture conditionnelle : refusée si la location a changé depuis sa lecture (mise à jour concurrente)
+        if (!rentalService.update(r, version)) {
+            throw new ResponseStatusException(HttpStatus.PRECONDITION_FAILED, "Rental has been modified");
+        }
+        if (pictureReplaced) {
+            imageDerivativeService.submit(r.getId(), r.getPicture());
+        }
         return new SimpleMessageResponse("Rental updated !");
     }
 
-    private RentalResponse toDto(Rental r) {
-        return RentalResponse.builder()
-                .id(r.getId())
-                .name(r.getName())
-                .surface(r.getSurface())
-                .price(r.getPrice())
-                .picture(r.getPicture())
-                .description(r.getDescription())
-                .ownerId(r.getOwner() != null ? r.getOwner().getId() : null)
-                .createdAt(r.getCreatedAt())
-                .updatedAt(r.getUpdatedAt())
-                .build();
+    private RentalFormReader.RentalForm readForm(HttpServletRequest request) {
+        try {
+            return rentalFormReader.read(request);
+        } catch (IOException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Could not store file");
+        }
     }
 }
@@ -1,13 +1,24 @@
 package com.Chatop.API.controller;
 
 import com.Chatop.API.dto.user.UserResponse;
-import com.Chatop.API.model.User;
+import com.Chatop.API.dto.user.UsersBatchResponse;
+import com.Chatop.API.service.BatchResult;
 import com.Chatop.API.service.UserService;
+import io.swagger.v3.oas.annotations.media.Content;
+import io.swagger.v3.oas.annotations.media.Schema;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.CacheControl;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 import org.springframework.web.server.ResponseStatusException;
 
+import java.time.Instant;
+import java.util.List;
+
 /**
  * Contrôleur gérant les opérations liées aux utilisateurs.
  */
@@ -16,25 +27,60 @@ import org.springframework.web.server.ResponseStatusException;
 @RequiredArgsConstructor
 public class UserController {
 
+    private static final int MAX_BATCH_SIZE = 1000;
+
     private final UserService userService;
 
     /**
      * Récupère les informations d’un utilisateur à partir de son identifiant.
+     * Comme pour le détail d’une location, la réponse porte un ETag et un Last-Modified tirés de
+     * {@code updatedAt} ; une requête conditionnelle à jour reçoit un 304 sans chargement de l’utilisateur.
      *
      * @param id Identifiant de l’utilisateur
+     * @param request Requête courante, pour la gestion des requêtes conditionnelles
      * @return UserResponse contenant les informations du profil utilisateur
      * @throws ResponseStatusException 404 si l’utilisateur n’existe pas
      */
     @GetMapping("/user/{id}")
-    public UserResponse getUser(@PathVariable("id") Long id) {
-        User u = userService.getUser(id)
+    @ApiResponse(responseCode = "200", content = @Content(
+            mediaType = MediaType.APPLICATION_JSON_VALUE,
+            schema = @Schema(implementation = UserResponse.class)))
+    public ResponseEntity<UserResponse> getUser(@PathVariable("id") Long id, WebRequest request) {
+        if (VersionTags.isConditionalGet(request)) {
+            Instant version = userService.getUserVersion(id)
+                    .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "User not found"));
+            if (request.checkNotModified(VersionTags.etag("user", id, version), version.toEpochMilli())) {
+                return null;
+            }
+            // En-têtes de cache déjà posés par checkNotModified
+            UserResponse user = userService.getUserResponse(id)
+                    .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "User not found"));
+            return ResponseEntity.ok().cacheControl(CacheControl.noCache()).body(user);
+        }
+
+        UserResponse user = userService.getUserResponse(id)
                 .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "User not found"));
-        return UserResponse.builder()
-                .id(u.getId())
-                .name(u.getName())
-                .email(u.getEmail())
-                .createdAt(u.getCreatedAt())
-                .updatedAt(u.getUpdatedAt())
-                .build();
+        return ResponseEntity.ok()
+                .eTag(VersionTags.etag("user", id, user.getUpdatedAt()))
+                .lastModified(user.getUpdatedAt())
+                .cacheControl(CacheControl.noCache())
+                .body(user);
+    }
+
+    /**
+     * Récupère plusieurs utilisateurs en une seule requête HTTP (et une requête SQL par tranche de 500 ids).
+     *
+     * @param ids Identifiants des utilisateurs, séparés par des virgules (1000 au plus)
+     * @return UsersBatchResponse : une entrée par id, dans l’ordre demandé ({@code null} si l’utilisateur
+     * n’existe pas), et la liste {@code not_found} des ids introuvables
+     * @throws IllegalArgumentException 400 si un id est vide ou s’il y a trop d’ids
+     */
+    @GetMapping(value = "/users", params = "ids")
+    public UsersBatchResponse getUsers(@RequestParam("ids") List<Long> ids) {
+        if (ids.size() > MAX_BATCH_SIZE) {
+            throw new IllegalArgumentException("Too many ids");
+        }
+        BatchResult<UserResponse> result = userService.getUserResponses(ids);
+        return new UsersBatchResponse(result.items(), result.notFound());
     }
 }
@@ -0,0 +1,41 @@
+package com.Chatop.API.controller;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.web.context.request.WebRequest;
+
+import java.time.Instant;
+
+/**
+ * ETags dérivés de la date de dernière modification ({@code updatedAt}) d'une ressource : l'ETag peut
+ * ainsi être recalculé par une simple requête (id, updatedAt), sans charger ni sérialiser la ressource.
+ */
+final class VersionTags {
+
+    private VersionTags() {
+    }
+
+    /**
+     * ETag fort de la version {@code updatedAt} de la ressource {@code type}/{@code id}
+     * (à la microseconde, précision des colonnes {@code datetime(6)}).
+     */
+    static String etag(String type, Long id, Instant updatedAt) {
+        return "\"" + type + "-" + id + "-" + Long.toString(updatedAt.getEpochSecond(), 36)
+                + "." + Long.toString(updatedAt.getNano() / 1000, 36) + "\"";
+    }
+
+    /**
+     * @return {@code true} si la requête porte un en-tête conditionnel de lecture
+     */
+    static boolean isConditionalGet(WebRequest request) {
+        return request.getHeader(HttpHeaders.IF_NONE_MATCH) != null
+                || request.getHeader(HttpHeaders.IF_MODIFIED_SINCE) != null;
+    }
+
+    /**
+     * @return {@code true} si la requête porte un en-tête conditionnel d'écriture
+     */
+    static boolean isConditionalWrite(WebRequest request) {
+        return request.getHeader(HttpHeaders.IF_MATCH) != null
+                || request.getHeader(HttpHeaders.IF_UNMODIFIED_SINCE) != null;
+    }
+}
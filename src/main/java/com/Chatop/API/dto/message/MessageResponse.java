@@ -0,0 +1,29 @@
+package com.Chatop.API.dto.message;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+
+import java.time.Instant;
+
+@Data
+@Builder
+@AllArgsConstructor
+public class MessageResponse {
+    private Long id;
+
+    @JsonProperty("rental_id")
+    private Long rentalId;
+
+    @JsonProperty("user_id")
+    private Long userId;
+
+    private String message;
+
+    @JsonProperty("created_at")
+    private Instant createdAt;
+
+    @JsonProperty("updated_at")
+    private Instant updatedAt;
+}
@@ -0,0 +1,19 @@
+package com.Chatop.API.dto.rental;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.Data;
+
+/**
+ * Description (OpenAPI uniquement) du formulaire multipart de création / mise à jour d'une location.
+ * Le formulaire est lu en streaming par {@code RentalFormReader}, pas lié à cette classe.
+ */
+@Data
+public class RentalFormRequest {
+    private String name;
+    private Integer surface;
+    private Integer price;
+    private String description;
+
+    @Schema(type = "string", format = "binary")
+    private String picture;
+}
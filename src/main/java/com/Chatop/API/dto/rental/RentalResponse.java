@@ -1,6 +1,7 @@
 package com.Chatop.API.dto.rental;
 
 import com.fasterxml.jackson.annotation.JsonProperty;
+import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
 
@@ -8,6 +9,7 @@ import java.time.Instant;
 
 @Data
 @Builder
+@AllArgsConstructor
 public class RentalResponse {
     private Long id;
     private String name;
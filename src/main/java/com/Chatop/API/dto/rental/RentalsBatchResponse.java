@@ -0,0 +1,22 @@
+package com.Chatop.API.dto.rental;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+@AllArgsConstructor
+public class RentalsBatchResponse {
+    /**
+     * Une entrée par id demandé, dans l'ordre de la requête ; {@code null} si la location n'existe pas.
+     */
+    private List<RentalResponse> rentals;
+
+    /**
+     * Ids demandés qui ne correspondent à aucune location.
+     */
+    @JsonProperty("not_found")
+    private List<Long> notFound;
+}
@@ -0,0 +1,19 @@
+package com.Chatop.API.dto.rental;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+@AllArgsConstructor
+public class RentalsPageResponse {
+    private List<RentalResponse> rentals;
+
+    /**
+     * Curseur à passer dans {@code after} pour obtenir la page suivante, {@code null} sur la dernière page.
+     */
+    @JsonProperty("next_cursor")
+    private String nextCursor;
+}
@@ -1,6 +1,7 @@
 package com.Chatop.API.dto.user;
 
 import com.fasterxml.jackson.annotation.JsonProperty;
+import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
 
@@ -8,6 +9,7 @@ import java.time.Instant;
 
 @Data
 @Builder
+@AllArgsConstructor
 public class UserResponse {
     private Long id;
     private String name;
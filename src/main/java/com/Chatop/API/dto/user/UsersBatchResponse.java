@@ -0,0 +1,22 @@
+package com.Chatop.API.dto.user;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+@AllArgsConstructor
+public class UsersBatchResponse {
+    /**
+     * Une entrée par id demandé, dans l'ordre de la requête ; {@code null} si l'utilisateur n'existe pas.
+     */
+    private List<UserResponse> users;
+
+    /**
+     * Ids demandés qui ne correspondent à aucun utilisateur.
+     */
+    @JsonProperty("not_found")
+    private List<Long> notFound;
+}
@@ -2,11 +2,14 @@ package com.Chatop.API.model;
 
 import jakarta.persistence.*;
 import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.ToString;
 
 import java.time.Instant;
 
 @Data
 @Entity
+// Schéma et index (fil d'une location, boîte de réception) définis par les migrations Flyway, pas par les annotations
 @Table(name = "MESSAGES")
 public class Message {
 
@@ -16,12 +19,24 @@ public class Message {
 
     @ManyToOne(fetch = FetchType.LAZY, optional = false)
     @JoinColumn(name = "rental_id", nullable = false)
+    // Associations exclues de toString / equals / hashCode : y accéder les chargerait (une requête par message)
+    @ToString.Exclude
+    @EqualsAndHashCode.Exclude
     private Rental rental;
 
     @ManyToOne(fetch = FetchType.LAZY, optional = false)
     @JoinColumn(name = "user_id", nullable = false)
+    @ToString.Exclude
+    @EqualsAndHashCode.Exclude
     private User user;
 
+    /**
+     * Propriétaire de la location, recopié pour l'index de la boîte de réception
+     * ({@code idx_messages_rental_owner_created_at_id}).
+     */
+    @Column(nullable = false, updatable = false)
+    private Long rentalOwnerId;
+
     @Column(nullable = false, length = 2000)
     private String message;
 
@@ -33,6 +48,9 @@ public class Message {
 
     @PrePersist
     public void onCreate() {
+        if (rentalOwnerId == null && rental != null) {
+            rentalOwnerId = rental.getOwner().getId();
+        }
         this.createdAt = Instant.now();
         this.updatedAt = Instant.now();
     }
@@ -2,11 +2,14 @@ package com.Chatop.API.model;
 
 import jakarta.persistence.*;
 import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.ToString;
 
 import java.time.Instant;
 
 @Data
 @Entity
+// Schéma et index (pagination par clé) définis par les migrations Flyway, pas par les annotations
 @Table(name = "RENTALS")
 public class Rental {
 
@@ -29,11 +32,27 @@ public class Rental {
     @Column(nullable = false, length = 500)
     private String picture;
 
+    /**
+     * Déclinaisons redimensionnées de {@link #picture}, générées en tâche de fond après l'upload.
+     * {@code null} tant qu'elles ne sont pas prêtes : l'image d'origine est alors servie.
+     */
+    @Column(length = 500)
+    private String pictureThumbnail;
+
+    @Column(length = 500)
+    private String pictureCard;
+
+    @Column(length = 500)
+    private String pictureFull;
+
     @Column(nullable = false, length = 2000)
     private String description;
 
     @ManyToOne(fetch = FetchType.LAZY, optional = false)
     @JoinColumn(name = "owner_id", nullable = false)
+    // Exclu de toString / equals / hashCode : y accéder chargerait le propriétaire (une requête par location)
+    @ToString.Exclude
+    @EqualsAndHashCode.Exclude
     private User owner;
 
     @Column(nullable = false, updatable = false)
@@ -42,6 +61,16 @@ public class Rental {
     @Column(nullable = false)
     private Instant updatedAt;
 
+    /**
+     * Remplace l'image d'origine et oublie les déclinaisons de l'ancienne, qui seront régénérées.
+     */
+    public void replacePicture(String picture) {
+        this.picture = picture;
+        this.pictureThumbnail = null;
+        this.pictureCard = null;
+        this.pictureFull = null;
+    }
+
     @PrePersist
     public void onCreate() {
         this.createdAt = Instant.now();
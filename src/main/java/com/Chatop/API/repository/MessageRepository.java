@@ -1,9 +1,52 @@
 package com.Chatop.API.repository;
 
+import com.Chatop.API.dto.message.MessageResponse;
 import com.Chatop.API.model.Message;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.CrudRepository;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.Instant;
+import java.util.List;
+
 @Repository
 public interface MessageRepository extends CrudRepository<Message, Long> {
+
+    /**
+     * Projection directe vers le DTO : les ids de location et d'auteur sont lus dans les clés étrangères,
+     * les associations LAZY ne sont jamais chargées.
+     */
+    String SELECT_RESPONSE = """
+            select new com.Chatop.API.dto.message.MessageResponse(
+                m.id, m.rental.id, m.user.id, m.message, m.createdAt, m.updatedAt)
+            from Message m
+            """;
+
+    /*
+     * Pagination par clé, du plus récent au plus ancien : chaque page reprend strictement avant
+     * le (created_at, id) du dernier message de la précédente. Chaque requête parcourt un index
+     * (rental_id ou rental_owner_id, created_at, id) dans l'ordre, sans tri.
+     */
+
+    @Query(SELECT_RESPONSE + """
+            where m.rental.id = :rentalId
+              and (m.createdAt < :beforeCreatedAt or (m.createdAt = :beforeCreatedAt and m.id < :beforeId))
+            order by m.createdAt desc, m.id desc
+            """)
+    List<MessageResponse> findPageByRental(@Param("rentalId") Long rentalId,
+                                           @Param("beforeCreatedAt") Instant beforeCreatedAt,
+                                           @Param("beforeId") long beforeId,
+                                           Limit limit);
+
+    @Query(SELECT_RESPONSE + """
+            where m.rentalOwnerId = :ownerId
+              and (m.createdAt < :beforeCreatedAt or (m.createdAt = :beforeCreatedAt and m.id < :beforeId))
+            order by m.createdAt desc, m.id desc
+            """)
+    List<MessageResponse> findPageByRentalOwner(@Param("ownerId") Long ownerId,
+                                                @Param("beforeCreatedAt") Instant beforeCreatedAt,
+                                                @Param("beforeId") long beforeId,
+                                                Limit limit);
 }
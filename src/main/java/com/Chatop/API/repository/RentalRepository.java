@@ -1,9 +1,180 @@
 package com.Chatop.API.repository;
 
+import com.Chatop.API.dto.rental.RentalResponse;
 import com.Chatop.API.model.Rental;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.CrudRepository;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
 
 @Repository
 public interface RentalRepository extends CrudRepository<Rental, Long> {
+
+    /**
+     * Projection directe vers le DTO : seules les colonnes utiles sont lues et {@code r.owner.id}
+     * est pris dans la clé étrangère {@code owner_id}, sans jointure ni chargement du propriétaire.
+     * Les listes renvoient la miniature de l'image quand elle existe.
+     */
+    String SELECT_RESPONSE = """
+            select new com.Chatop.API.dto.rental.RentalResponse(
+                r.id, r.name, r.surface, r.price, coalesce(r.pictureThumbnail, r.picture), r.description,
+                r.owner.id, r.createdAt, r.updatedAt)
+            from Rental r
+            """;
+
+    /**
+     * Variante de {@link #SELECT_RESPONSE} pour le détail : image redimensionnée « full » si elle existe.
+     */
+    String SELECT_DETAIL_RESPONSE = """
+            select new com.Chatop.API.dto.rental.RentalResponse(
+                r.id, r.name, r.surface, r.price, coalesce(r.pictureFull, r.picture), r.description,
+                r.owner.id, r.createdAt, r.updatedAt)
+            from Rental r
+            """;
+
+    /**
+     * Taille des lots lus par {@link #streamAllResponses()} (avec {@code useCursorFetch=true} sous MySQL,
+     * sans quoi le pilote charge tout le résultat en mémoire).
+     */
+    String STREAM_FETCH_SIZE = "500";
+
+    /**
+     * Toutes les locations, lues par lots au fil du parcours. Le flux doit être consommé puis fermé
+     * dans la transaction de l'appelant.
+     */
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = STREAM_FETCH_SIZE))
+    @Query(SELECT_RESPONSE)
+    Stream<RentalResponse> streamAllResponses();
+
+    /**
+     * Toutes les locations, pour construire le cache de la liste et l'index de recherche.
+     * Lu sur le primaire : ces structures sont ensuite tenues à jour par les écritures, sans relecture.
+     */
+    @Transactional
+    @Query(SELECT_RESPONSE)
+    List<RentalResponse> findAllResponses();
+
+    @Query(SELECT_DETAIL_RESPONSE + "where r.id = :id")
+    Optional<RentalResponse> findResponseById(@Param("id") Long id);
+
+    /**
+     * Détail de plusieurs locations en une requête, dans un ordre quelconque (ids inconnus ignorés).
+     */
+    @Query(SELECT_DETAIL_RESPONSE + "where r.id in :ids")
+    List<RentalResponse> findResponsesByIdIn(@Param("ids") Collection<Long> ids);
+
+    /**
+     * Date de dernière modification d'une location, seule donnée nécessaire aux requêtes conditionnelles
+     * (vide si la location n'existe pas).
+     */
+    @Query("select r.updatedAt from Rental r where r.id = :id")
+    Optional<Instant> findUpdatedAtById(@Param("id") Long id);
+
+    /**
+     * Id du propriétaire d'une location, lu dans la clé étrangère (vide si la location n'existe pas).
+     */
+    @Query("select r.owner.id from Rental r where r.id = :id")
+    Optional<Long> findOwnerIdById(@Param("id") Long id);
+
+    /**
+     * Toutes les URLs d'images référencées (origine et déclinaisons), pour le nettoyage des fichiers orphelins.
+     */
+    @Query("select r.picture, r.pictureThumbnail, r.pictureCard, r.pictureFull from Rental r")
+    List<Object[]> findAllPictureUrls();
+
+    /**
+     * Modifie une location, uniquement si elle n'a pas changé depuis la lecture de {@code expected}
+     * (sa date de dernière modification). Une nouvelle image efface les déclinaisons de l'ancienne.
+     *
+     * @return le nombre de lignes mises à jour (0 ou 1)
+     */
+    @Modifying
+    @Transactional
+    @Query("""
+            update Rental r
+            set r.name = :name, r.surface = :surface, r.price = :price, r.description = :description,
+                r.picture = :picture, r.pictureThumbnail = :thumbnail, r.pictureCard = :card, r.pictureFull = :full,
+                r.updatedAt = :now
+            where r.id = :id and r.updatedAt = :expected
+            """)
+    int updateIfUnmodified(@Param("id") Long id,
+                           @Param("name") String name,
+                           @Param("surface") Integer surface,
+                           @Param("price") Integer price,
+                           @Param("description") String description,
+                           @Param("picture") String picture,
+                           @Param("thumbnail") String thumbnail,
+                           @Param("card") String card,
+                           @Param("full") String full,
+                           @Param("expected") Instant expected,
+                           @Param("now") Instant now);
+
+    /**
+     * Enregistre les déclinaisons d'une image, uniquement si la location pointe toujours sur cette image
+     * (elle a pu être remplacée pendant la génération).
+     *
+     * @return le nombre de lignes mises à jour (0 ou 1)
+     */
+    @Modifying
+    @Transactional
+    @Query("""
+            update Rental r
+            set r.pictureThumbnail = :thumbnail, r.pictureCard = :card, r.pictureFull = :full, r.updatedAt = :now
+            where r.id = :id and r.picture = :picture
+            """)
+    int updatePictureDerivatives(@Param("id") Long id,
+                                 @Param("picture") String picture,
+                                 @Param("thumbnail") String thumbnail,
+                                 @Param("card") String card,
+                                 @Param("full") String full,
+                                 @Param("now") Instant now);
+
+    /*
+     * Requêtes de pagination par clé : chaque page reprend strictement après le dernier
+     * élément de la précédente (valeur de tri, puis id), ce qui évite les OFFSET coûteux.
+     */
+
+    @Query(SELECT_RESPONSE + """
+            where r.id > :afterId
+              and r.price between :minPrice and :maxPrice
+            order by r.id asc
+            """)
+    List<RentalResponse> findPageById(@Param("afterId") long afterId,
+                                      @Param("minPrice") int minPrice,
+                                      @Param("maxPrice") int maxPrice,
+                                      Limit limit);
+
+    @Query(SELECT_RESPONSE + """
+            where (r.price > :afterPrice or (r.price = :afterPrice and r.id > :afterId))
+              and r.price between :minPrice and :maxPrice
+            order by r.price asc, r.id asc
+            """)
+    List<RentalResponse> findPageByPrice(@Param("afterPrice") int afterPrice,
+                                         @Param("afterId") long afterId,
+                                         @Param("minPrice") int minPrice,
+                                         @Param("maxPrice") int maxPrice,
+                                         Limit limit);
+
+    @Query(SELECT_RESPONSE + """
+            where (r.createdAt > :afterCreatedAt or (r.createdAt = :afterCreatedAt and r.id > :afterId))
+              and r.price between :minPrice and :maxPrice
+            order by r.createdAt asc, r.id asc
+            """)
+    List<RentalResponse> findPageByCreatedAt(@Param("afterCreatedAt") Instant afterCreatedAt,
+                                             @Param("afterId") long afterId,
+                                             @Param("minPrice") int minPrice,
+                                             @Param("maxPrice") int maxPrice,
+                                             Limit limit);
 }
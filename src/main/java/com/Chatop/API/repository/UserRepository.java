@@ -1,13 +1,74 @@
 package com.Chatop.API.repository;
 
+import com.Chatop.API.dto.user.UserResponse;
 import com.Chatop.API.model.User;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.CrudRepository;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 @Repository
 public interface UserRepository extends CrudRepository<User, Long> {
+
+    /**
+     * Projection vers le DTO : le hash du mot de passe n'est jamais lu.
+     */
+    String SELECT_RESPONSE = """
+            select new com.Chatop.API.dto.user.UserResponse(u.id, u.name, u.email, u.createdAt, u.updatedAt)
+            from User u
+            """;
+
+    /*
+     * Lectures d'authentification (connexion, unicité de l'email) : toujours sur le primaire
+     * (transaction en écriture), un compte tout juste créé doit être visible immédiatement.
+     */
+
+    @Transactional
     Optional<User> findByEmail(String email);
+
+    @Transactional
     boolean existsByEmail(String email);
+
+    @Query(SELECT_RESPONSE + "where u.id = :id")
+    Optional<UserResponse> findResponseById(@Param("id") Long id);
+
+    /**
+     * Plusieurs utilisateurs en une requête, dans un ordre quelconque (ids inconnus ignorés).
+     */
+    @Query(SELECT_RESPONSE + "where u.id in :ids")
+    List<UserResponse> findResponsesByIdIn(@Param("ids") Collection<Long> ids);
+
+    @Query(SELECT_RESPONSE + "where u.email = :email")
+    Optional<UserResponse> findResponseByEmail(@Param("email") String email);
+
+    /**
+     * Date de dernière modification d'un utilisateur, pour les requêtes conditionnelles
+     * (vide si l'utilisateur n'existe pas).
+     */
+    @Query("select u.updatedAt from User u where u.id = :id")
+    Optional<Instant> findUpdatedAtById(@Param("id") Long id);
+
+    /**
+     * Lot de couples (id, email) d'id supérieur à {@code afterId}, pour charger le filtre des emails connus.
+     * Lu sur le primaire : le filtre ne doit manquer aucun compte.
+     */
+    @Transactional
+    @Query("select u.id, u.email from User u where u.id > :afterId order by u.id")
+    List<Object[]> findEmailsAfter(@Param("afterId") long afterId, Limit limit);
+
+    /**
+     * Remplace le hash du mot de passe (recalcul avec un nouveau facteur de coût), sans relire l'utilisateur.
+     */
+    @Modifying
+    @Transactional
+    @Query("update User u set u.password = :password, u.updatedAt = :now where u.id = :id")
+    int updatePassword(@Param("id") Long id, @Param("password") String password, @Param("now") Instant now);
 }
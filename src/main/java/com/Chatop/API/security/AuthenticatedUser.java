@@ -0,0 +1,19 @@
+package com.Chatop.API.security;
+
+import org.springframework.security.core.AuthenticatedPrincipal;
+
+/**
+ * Principal construit à partir des claims du JWT, sans accès à la base.
+ * {@link #getName()} renvoie l'email afin que {@code Authentication.getName()} reste inchangé.
+ *
+ * @param id    identifiant de l'utilisateur (claim {@code userId})
+ * @param email email de l'utilisateur (sujet du token)
+ * @param name  nom affiché (claim {@code name}), éventuellement {@code null} pour les anciens tokens
+ */
+public record AuthenticatedUser(Long id, String email, String name) implements AuthenticatedPrincipal {
+
+    @Override
+    public String getName() {
+        return email;
+    }
+}
@@ -1,10 +1,16 @@
 package com.Chatop.API.security;
 
 import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtException;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.SignatureAlgorithm;
 import io.jsonwebtoken.io.Decoders;
 import io.jsonwebtoken.security.Keys;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
@@ -13,16 +19,54 @@ import java.security.Key;
 import java.time.Instant;
 import java.util.Date;
 import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
 
 @Service
+@RequiredArgsConstructor
 public class JwtService {
 
+    private final MeterRegistry meterRegistry;
+
     @Value("${app.jwt.secret}")
     private String secret;
 
     @Value("${app.jwt.expiration-seconds:86400}")
     private long expirationSeconds;
 
+    @Value("${app.jwt.verified-cache-size:10000}")
+    private int verifiedCacheSize;
+
+    // Construits une seule fois : la clé et le parser sont immuables et thread-safe.
+    private Key signingKey;
+    private JwtParser parser;
+    private VerifiedTokenCache verifiedTokens;
+
+    // Durée des vérifications (jwt.verify), par résultat et selon que le token venait du cache
+    private Timer cacheHitTimer;
+    private Timer validTimer;
+    private Timer invalidTimer;
+
+    @PostConstruct
+    void init() {
+        signingKey = buildSigningKey();
+        parser = Jwts.parserBuilder()
+                .setSigningKey(signingKey)
+                .build();
+        verifiedTokens = new VerifiedTokenCache(verifiedCacheSize);
+
+        cacheHitTimer = verifyTimer("valid", "hit");
+        validTimer = verifyTimer("valid", "miss");
+        invalidTimer = verifyTimer("invalid", "miss");
+    }
+
+    private Timer verifyTimer(String result, String cache) {
+        return Timer.builder("jwt.verify")
+                .tag("result", result)
+                .tag("cache", cache)
+                .register(meterRegistry);
+    }
+
     public String generateToken(String subject, Map<String, Object> claims) {
         Instant now = Instant.now();
         Instant exp = now.plusSeconds(expirationSeconds);
@@ -32,32 +76,40 @@ public class JwtService {
                 .setSubject(subject)
                 .setIssuedAt(Date.from(now))
                 .setExpiration(Date.from(exp))
-                .signWith(getSigningKey(), SignatureAlgorithm.HS256)
+                .signWith(signingKey, SignatureAlgorithm.HS256)
                 .compact();
     }
 
-    public String extractSubject(String token) {
-        return extractAllClaims(token).getSubject();
-    }
-
-    public boolean isTokenValid(String token) {
+    /**
+     * Vérifie le token (signature et expiration) et renvoie ses claims en une seule passe.
+     * Les tokens déjà vérifiés sont servis depuis le cache jusqu'à leur expiration.
+     *
+     * @return les claims du token, ou vide si le token est invalide ou expiré
+     */
+    public Optional<Claims> parseValidClaims(String token) {
+        long start = System.nanoTime();
+        long now = System.currentTimeMillis();
+        Claims cached = verifiedTokens.get(token, now);
+        if (cached != null) {
+            cacheHitTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            return Optional.of(cached);
+        }
+        Claims c = null;
         try {
-            Claims c = extractAllClaims(token);
-            return c.getExpiration() != null && c.getExpiration().after(new Date());
-        } catch (Exception e) {
-            return false;
+            c = parser.parseClaimsJws(token).getBody();
+            if (c.getExpiration() == null || c.getExpiration().getTime() <= now) {
+                c = null;
+            } else {
+                verifiedTokens.put(token, c, now);
+            }
+        } catch (JwtException | IllegalArgumentException e) {
+            c = null;
         }
+        (c != null ? validTimer : invalidTimer).record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        return Optional.ofNullable(c);
     }
 
-    private Claims extractAllClaims(String token) {
-        return Jwts.parserBuilder()
-                .setSigningKey(getSigningKey())
-                .build()
-                .parseClaimsJws(token)
-                .getBody();
-    }
-
-    private Key getSigningKey() {
+    private Key buildSigningKey() {
         // Accept either a Base64 secret or a raw string secret.
         byte[] keyBytes;
         try {
@@ -0,0 +1,151 @@
+package com.Chatop.API.security;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.stereotype.Service;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.time.Duration;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Exécute le hachage et la vérification des mots de passe (BCrypt) sur un pool dédié et borné.
+ * <p>
+ * BCrypt est volontairement coûteux en CPU : exécuté sur les threads Tomcat, un afflux de connexions
+ * (ou une attaque par credential stuffing) bloquerait tous les autres endpoints. Ici, au plus
+ * {@code threads} hachages tournent en parallèle ; au-delà de {@code queue-capacity} demandes en attente,
+ * la requête est refusée immédiatement (503) au lieu de s'empiler.
+ * <p>
+ * Une demande qui n'obtient pas de résultat dans {@code timeout} reçoit aussi un 503. Si elle attendait encore
+ * dans la file, elle en est retirée et ne sera jamais calculée. Si son hachage a déjà commencé, il va à son terme :
+ * BCrypt ne réagit pas à l'interruption, {@code cancel(true)} n'arrête pas le calcul en cours. Le travail perdu
+ * reste borné par la taille du pool.
+ * <p>
+ * Métriques : {@code auth.password.hash} (durée du hachage, par opération) et
+ * {@code auth.password.queue.wait} (attente dans la file), {@code auth.password.queue.size}.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class PasswordHashingService {
+
+    private final PasswordEncoder passwordEncoder;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${app.security.hashing.threads:0}")
+    private int threads;
+
+    @Value("${app.security.hashing.queue-capacity:64}")
+    private int queueCapacity;
+
+    @Value("${app.security.hashing.timeout:PT5S}")
+    private Duration timeout;
+
+    private ThreadPoolExecutor executor;
+    private Timer encodeTimer;
+    private Timer matchesTimer;
+    private Timer queueWaitTimer;
+
+    @PostConstruct
+    void init() {
+        int size = threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+        AtomicInteger counter = new AtomicInteger();
+        executor = new ThreadPoolExecutor(size, size, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                r -> {
+                    Thread t = new Thread(r, "password-hashing-" + counter.incrementAndGet());
+                    t.setDaemon(true);
+                    return t;
+                },
+                new ThreadPoolExecutor.AbortPolicy());
+
+        encodeTimer = Timer.builder("auth.password.hash").tag("operation", "encode").register(meterRegistry);
+        matchesTimer = Timer.builder("auth.password.hash").tag("operation", "matches").register(meterRegistry);
+        queueWaitTimer = Timer.builder("auth.password.queue.wait").register(meterRegistry);
+        Gauge.builder("auth.password.queue.size", executor, e -> e.getQueue().size()).register(meterRegistry);
+    }
+
+    @PreDestroy
+    void shutdown() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * @throws ResponseStatusException 503 si le pool de hachage est saturé
+     */
+    public String encode(String rawPassword) {
+        return run(encodeTimer, () -> passwordEncoder.encode(rawPassword));
+    }
+
+    /**
+     * @throws ResponseStatusException 503 si le pool de hachage est saturé
+     */
+    public boolean matches(String rawPassword, String encodedPassword) {
+        return run(matchesTimer, () -> passwordEncoder.matches(rawPassword, encodedPassword));
+    }
+
+    /**
+     * Indique si le hash a été calculé avec un facteur de coût inférieur au facteur configuré
+     * et doit être recalculé (à la prochaine connexion réussie).
+     */
+    public boolean needsRehash(String encodedPassword) {
+        return passwordEncoder.upgradeEncoding(encodedPassword);
+    }
+
+    private <T> T run(Timer timer, Callable<T> task) {
+        long submitted = System.nanoTime();
+        Future<T> future;
+        try {
+            future = executor.submit(() -> {
+                queueWaitTimer.record(System.nanoTime() - submitted, TimeUnit.NANOSECONDS);
+                return timer.recordCallable(task);
+            });
+        } catch (RejectedExecutionException e) {
+            log.warn("Password hashing queue full, rejecting request");
+            throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "Server busy");
+        }
+
+        try {
+            return future.get(timeout.toMillis(), TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            abandon(future);
+            throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "Server busy");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            abandon(future);
+            throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "Server busy");
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException re) {
+                throw re;
+            }
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+
+    /**
+     * Libère tout de suite la place de la tâche dans la file si elle n'a pas démarré (une tâche annulée
+     * y resterait jusqu'à ce qu'un thread la dépile). Un hachage déjà en cours n'est pas interrompu.
+     */
+    private void abandon(Future<?> future) {
+        future.cancel(true);
+        if (future instanceof Runnable task) {
+            executor.remove(task);
+        }
+    }
+}
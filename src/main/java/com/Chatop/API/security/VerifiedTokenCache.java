@@ -0,0 +1,92 @@
+package com.Chatop.API.security;
+
+import io.jsonwebtoken.Claims;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Cache borné des tokens déjà vérifiés (signature + expiration).
+ * La clé est l'empreinte SHA-256 du token (le token lui-même n'est pas conservé) et chaque
+ * entrée est évincée à l'expiration du token. Quand le cache est plein, le token utilisé le moins
+ * récemment laisse sa place (LRU) : un nouveau client est toujours mis en cache, en temps constant.
+ */
+class VerifiedTokenCache {
+
+    private record Entry(Claims claims, long expiresAtMillis) {
+    }
+
+    private final int maxSize;
+    // Ordre d'accès : get() déplace l'entrée en fin de liste, l'éviction retire la plus ancienne.
+    // Verrou explicite plutôt que synchronized : un thread virtuel en attente n'épingle pas son porteur.
+    private final Lock lock = new ReentrantLock();
+    private final LinkedHashMap<String, Entry> entries;
+
+    VerifiedTokenCache(int maxSize) {
+        this.maxSize = maxSize;
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+                return size() > VerifiedTokenCache.this.maxSize;
+            }
+        };
+    }
+
+    Claims get(String token, long nowMillis) {
+        if (maxSize <= 0) {
+            return null;
+        }
+        String key = digest(token);
+        lock.lock();
+        try {
+            Entry e = entries.get(key);
+            if (e == null) {
+                return null;
+            }
+            if (nowMillis >= e.expiresAtMillis()) {
+                entries.remove(key);
+                return null;
+            }
+            return e.claims();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    void put(String token, Claims claims, long nowMillis) {
+        if (maxSize <= 0 || claims.getExpiration() == null || nowMillis >= claims.getExpiration().getTime()) {
+            return;
+        }
+        String key = digest(token);
+        lock.lock();
+        try {
+            entries.put(key, new Entry(claims, claims.getExpiration().getTime()));
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    int size() {
+        lock.lock();
+        try {
+            return entries.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private static String digest(String token) {
+        try {
+            byte[] hash = MessageDigest.getInstance("SHA-256").digest(token.getBytes(StandardCharsets.US_ASCII));
+            return Base64.getEncoder().encodeToString(hash);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -6,13 +6,13 @@ import com.Chatop.API.dto.auth.RegisterRequest;
 import com.Chatop.API.model.User;
 import com.Chatop.API.repository.UserRepository;
 import com.Chatop.API.security.JwtService;
+import com.Chatop.API.security.PasswordHashingService;
 import lombok.RequiredArgsConstructor;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.security.authentication.BadCredentialsException;
-import org.springframework.security.authentication.AuthenticationManager;
-import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
-import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 
+import java.time.Instant;
 import java.util.Map;
 
 @Service
@@ -20,34 +20,91 @@ import java.util.Map;
 public class AuthService {
 
     private final UserRepository userRepository;
-    private final PasswordEncoder passwordEncoder;
+    private final PasswordHashingService passwordHashingService;
     private final JwtService jwtService;
-    private final AuthenticationManager authenticationManager;
+    private final KnownEmailFilter knownEmailFilter;
 
+    /**
+     * Hash comparé quand l'email est inconnu : la réponse prend le même temps que pour un mauvais
+     * mot de passe, l'existence du compte ne se devine pas au chronomètre.
+     */
+    private volatile String dummyHash;
+
+    /**
+     * Inscrit un utilisateur : l'insertion est tentée directement, la contrainte d'unicité sur l'email
+     * tranche (y compris entre deux inscriptions concurrentes).
+     * <p>
+     * Compromis : un email déjà pris coûte alors un hachage BCrypt inutile avant le refus. Quand
+     * {@link KnownEmailFilter} est actif, un email qu'il signale comme probablement connu est donc vérifié
+     * d'abord (une lecture, pour environ 1 % des nouveaux emails en faux positifs). Filtre désactivé ou pas
+     * encore chargé, il répondrait « peut-être » à chaque appel : la vérification ajouterait une requête à
+     * chaque inscription pour n'épargner un BCrypt qu'aux doublons, elle est omise.
+     *
+     * @throws IllegalArgumentException 400 si l'email est déjà utilisé
+     */
     public AuthResponse register(RegisterRequest req) {
-        if (userRepository.existsByEmail(req.getEmail())) {
+        if (knownEmailFilter.isActive() && knownEmailFilter.mightContain(req.getEmail())
+                && userRepository.existsByEmail(req.getEmail())) {
             throw new IllegalArgumentException("Email already in use");
         }
 
         User u = new User();
         u.setName(req.getName());
         u.setEmail(req.getEmail());
-        u.setPassword(passwordEncoder.encode(req.getPassword()));
-        User saved = userRepository.save(u);
+        u.setPassword(passwordHashingService.encode(req.getPassword()));
+        User saved;
+        try {
+            saved = userRepository.save(u);
+        } catch (DataIntegrityViolationException e) {
+            throw new IllegalArgumentException("Email already in use");
+        }
+        knownEmailFilter.add(saved.getEmail());
 
-        String token = jwtService.generateToken(saved.getEmail(), Map.of("userId", saved.getId()));
+        String token = jwtService.generateToken(saved.getEmail(), tokenClaims(saved));
         return new AuthResponse(token);
     }
 
+    /**
+     * Vérifie les identifiants avec au plus une lecture de l'utilisateur (aucune pour un email que
+     * {@link KnownEmailFilter} sait inconnu). Si son hash a été calculé avec
+     * un facteur de coût inférieur au facteur configuré, il est recalculé au passage.
+     *
+     * @throws BadCredentialsException 401 si l'email est inconnu ou le mot de passe incorrect
+     */
     public AuthResponse login(LoginRequest req) {
-        authenticationManager.authenticate(
-                new UsernamePasswordAuthenticationToken(req.getEmail(), req.getPassword())
-        );
-
-        User u = userRepository.findByEmail(req.getEmail())
-                .orElseThrow(() -> new BadCredentialsException("error"));
+        // Email certainement inconnu : pas de lecture en base
+        User u = knownEmailFilter.mightContain(req.getEmail())
+                ? userRepository.findByEmail(req.getEmail()).orElse(null)
+                : null;
+        if (u == null) {
+            passwordHashingService.matches(req.getPassword(), dummyHash());
+            throw new BadCredentialsException("error");
+        }
+        if (!passwordHashingService.matches(req.getPassword(), u.getPassword())) {
+            throw new BadCredentialsException("error");
+        }
+        if (passwordHashingService.needsRehash(u.getPassword())) {
+            userRepository.updatePassword(u.getId(), passwordHashingService.encode(req.getPassword()), Instant.now());
+        }
 
-        String token = jwtService.generateToken(u.getEmail(), Map.of("userId", u.getId()));
+        String token = jwtService.generateToken(u.getEmail(), tokenClaims(u));
         return new AuthResponse(token);
     }
+
+    private String dummyHash() {
+        String hash = dummyHash;
+        if (hash == null) {
+            hash = passwordHashingService.encode("dummy-password");
+            dummyHash = hash;
+        }
+        return hash;
+    }
+
+    /**
+     * Claims embarqués dans le token : ils suffisent à reconstruire le principal
+     * ({@code AuthenticatedUser}) sans relire l'utilisateur en base à chaque requête.
+     */
+    private static Map<String, Object> tokenClaims(User u) {
+        return Map.of("userId", u.getId(), "name", u.getName());
+    }
 }
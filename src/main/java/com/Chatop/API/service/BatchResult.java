@@ -0,0 +1,61 @@
+package com.Chatop.API.service;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+
+/**
+ * Résultat d'une lecture par lot d'identifiants.
+ *
+ * @param items    un élément par id demandé, dans l'ordre de la requête ({@code null} pour un id introuvable)
+ * @param notFound ids introuvables, sans doublon, dans l'ordre de la requête
+ */
+public record BatchResult<T>(List<T> items, List<Long> notFound) {
+
+    /**
+     * Nombre maximal d'ids par requête {@code IN} : les listes plus longues sont lues en plusieurs requêtes.
+     */
+    public static final int CHUNK_SIZE = 500;
+
+    /**
+     * Lit les éléments des {@code ids} (doublons ignorés) par requêtes {@code IN} d'au plus {@link #CHUNK_SIZE} ids,
+     * puis les remet dans l'ordre de la requête.
+     *
+     * @param query lecture d'un lot d'ids, dans un ordre quelconque
+     * @param idOf  id d'un élément lu
+     * @throws IllegalArgumentException si un id est vide
+     */
+    public static <T> BatchResult<T> load(List<Long> ids, Function<List<Long>, List<T>> query, Function<T, Long> idOf) {
+        if (ids.contains(null)) {
+            throw new IllegalArgumentException("Invalid ids");
+        }
+        List<Long> distinct = List.copyOf(new LinkedHashSet<>(ids));
+        Map<Long, T> found = new HashMap<>();
+        for (int from = 0; from < distinct.size(); from += CHUNK_SIZE) {
+            for (T item : query.apply(distinct.subList(from, Math.min(from + CHUNK_SIZE, distinct.size())))) {
+                found.put(idOf.apply(item), item);
+            }
+        }
+        return of(ids, found);
+    }
+
+    /**
+     * Remet les éléments trouvés dans l'ordre des {@code ids} demandés.
+     */
+    public static <T> BatchResult<T> of(List<Long> ids, Map<Long, T> found) {
+        List<T> items = new ArrayList<>(ids.size());
+        Set<Long> notFound = new LinkedHashSet<>();
+        for (Long id : ids) {
+            T item = found.get(id);
+            items.add(item);
+            if (item == null) {
+                notFound.add(id);
+            }
+        }
+        return new BatchResult<>(items, List.copyOf(notFound));
+    }
+}
@@ -1,19 +1,49 @@
 package com.Chatop.API.service;
 
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
 import lombok.RequiredArgsConstructor;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import org.springframework.util.StringUtils;
-import org.springframework.web.multipart.MultipartFile;
 
 import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
 import java.nio.file.*;
-import java.util.UUID;
+import java.nio.file.attribute.FileTime;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.Locale;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
 
+/**
+ * Stockage des images sur disque, adressé par contenu : chaque fichier est nommé d'après
+ * l'empreinte SHA-256 de son contenu, calculée pendant l'écriture. Un même contenu n'est
+ * donc stocké qu'une fois ; les fichiers qui ne sont plus référencés par aucune location
+ * sont supprimés par {@link UploadSweeper}.
+ */
 @Service
 @RequiredArgsConstructor
 public class FileStorageService {
 
+    /**
+     * Préfixe des fichiers en cours d'écriture (jamais servis, nettoyés par le sweeper s'ils sont abandonnés).
+     */
+    public static final String TEMP_PREFIX = ".upload-";
+
+    private static final Pattern EXTENSION = Pattern.compile("\\.[a-z0-9]{1,10}");
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final MeterRegistry meterRegistry;
+
     @Value("${app.upload.dir:uploads}")
     private String uploadDir;
 
@@ -23,25 +53,146 @@ public class FileStorageService {
     @Value("${app.public.base-url:http://localhost:3001}")
     private String publicBaseUrlHost;
 
-    public String store(MultipartFile file) throws IOException {
-        if (file == null || file.isEmpty()) {
-            throw new IOException("Empty file");
-        }
+    // Métriques des uploads : taille des fichiers, octets écrits et durée d'écriture par résultat
+    private DistributionSummary uploadSize;
+    private Counter uploadBytes;
+    private Timer storedTimer;
+    private Timer duplicateTimer;
+    private Timer failedTimer;
 
-        Path dir = Paths.get(uploadDir).toAbsolutePath().normalize();
+    @PostConstruct
+    void init() {
+        uploadSize = DistributionSummary.builder("upload.size")
+                .baseUnit("bytes")
+                .register(meterRegistry);
+        uploadBytes = Counter.builder("upload.bytes")
+                .baseUnit("bytes")
+                .register(meterRegistry);
+        storedTimer = storeTimer("stored");
+        duplicateTimer = storeTimer("duplicate");
+        failedTimer = storeTimer("failed");
+    }
+
+    /**
+     * Écrit le flux sur disque en calculant son empreinte au fil de l'eau, puis le range sous
+     * {@code <sha256><extension>}. Si ce contenu est déjà stocké, la copie est abandonnée.
+     * Le fichier est synchronisé sur disque avant d'être rendu visible.
+     *
+     * @return l'URL publique du fichier
+     */
+    public String store(InputStream in, String originalFilename) throws IOException {
+        long start = System.nanoTime();
+        Timer outcome = failedTimer;
+        Path dir = directory();
         Files.createDirectories(dir);
 
-        String original = StringUtils.cleanPath(file.getOriginalFilename() == null ? "file" : file.getOriginalFilename());
-        String ext = "";
-        int dot = original.lastIndexOf('.');
-        if (dot >= 0 && dot < original.length() - 1) {
-            ext = original.substring(dot);
+        MessageDigest digest = sha256();
+        Path tmp = Files.createTempFile(dir, TEMP_PREFIX, ".tmp");
+        try {
+            long size = 0;
+            try (FileChannel out = FileChannel.open(tmp, StandardOpenOption.WRITE)) {
+                byte[] buffer = new byte[BUFFER_SIZE];
+                int n;
+                while ((n = in.read(buffer)) != -1) {
+                    digest.update(buffer, 0, n);
+                    ByteBuffer bb = ByteBuffer.wrap(buffer, 0, n);
+                    while (bb.hasRemaining()) {
+                        out.write(bb);
+                    }
+                    size += n;
+                    uploadBytes.increment(n);
+                }
+                out.force(true);
+            }
+            if (size == 0) {
+                throw new IOException("Empty file");
+            }
+
+            uploadSize.record(size);
+
+            String filename = HexFormat.of().formatHex(digest.digest()) + extension(originalFilename);
+            Path target = dir.resolve(filename);
+            if (Files.exists(target)) {
+                // Contenu déjà présent : on le « rajeunit » pour que le sweeper ne le supprime pas
+                // avant que la location qui le référence soit enregistrée.
+                Files.setLastModifiedTime(target, FileTime.fromMillis(System.currentTimeMillis()));
+                outcome = duplicateTimer;
+            } else {
+                // Même en cas de course entre deux uploads identiques, le contenu remplacé est le même.
+                Files.move(tmp, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+                outcome = storedTimer;
+            }
+            return publicUrl(filename);
+        } finally {
+            Files.deleteIfExists(tmp);
+            outcome.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
         }
-        String filename = UUID.randomUUID() + ext;
+    }
 
-        Path target = dir.resolve(filename);
-        Files.copy(file.getInputStream(), target, StandardCopyOption.REPLACE_EXISTING);
+    /**
+     * Répertoire de stockage des images.
+     */
+    public Path directory() {
+        return Paths.get(uploadDir).toAbsolutePath().normalize();
+    }
 
+    /**
+     * URL publique d'un fichier du répertoire de stockage.
+     */
+    public String publicUrl(String filename) {
         return publicBaseUrlHost + publicBaseUrl + "/" + filename;
     }
+
+    /**
+     * Retrouve le fichier local correspondant à une URL renvoyée par {@link #store}.
+     * Seul le nom de fichier (dernier segment du chemin) est pris en compte : une URL enregistrée sous un
+     * autre hôte, schéma ou port ({@code app.public.base-url} modifié depuis) désigne toujours le même fichier.
+     *
+     * @return le chemin du fichier, ou vide si l'URL ne contient pas de nom de fichier valide
+     */
+    public Optional<Path> resolve(String publicUrl) {
+        if (publicUrl == null) {
+            return Optional.empty();
+        }
+        String path = publicUrl;
+        int end = indexOfAny(path, '?', '#');
+        if (end >= 0) {
+            path = path.substring(0, end);
+        }
+        String filename = path.substring(path.lastIndexOf('/') + 1);
+        if (filename.isEmpty() || filename.contains("\\") || filename.startsWith(".") || filename.contains("..")) {
+            return Optional.empty();
+        }
+        return Optional.of(directory().resolve(filename));
+    }
+
+    private static int indexOfAny(String s, char a, char b) {
+        int i = s.indexOf(a);
+        int j = s.indexOf(b);
+        return i < 0 ? j : j < 0 ? i : Math.min(i, j);
+    }
+
+    private Timer storeTimer(String outcome) {
+        return Timer.builder("upload.store")
+                .tag("outcome", outcome)
+                .register(meterRegistry);
+    }
+
+    private static String extension(String originalFilename) {
+        String original = StringUtils.cleanPath(originalFilename == null ? "file" : originalFilename);
+        int dot = original.lastIndexOf('.');
+        if (dot < 0) {
+            return "";
+        }
+        String ext = original.substring(dot).toLowerCase(Locale.ROOT);
+        return EXTENSION.matcher(ext).matches() ? ext : "";
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
 }
@@ -0,0 +1,238 @@
+package com.Chatop.API.service;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReadParam;
+import javax.imageio.ImageReader;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.ImageInputStream;
+import javax.imageio.stream.ImageOutputStream;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
+import java.util.EnumMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Génère en tâche de fond les déclinaisons redimensionnées (miniature, carte, plein écran) des images
+ * de locations, puis les enregistre sur la location.
+ * <p>
+ * Les traitements tournent sur un pool borné : l'upload rend la main dès que l'original est écrit.
+ * Si la file est pleine, la génération est abandonnée et l'image d'origine reste servie.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class ImageDerivativeService {
+
+    /**
+     * Déclinaisons générées, avec la plus grande dimension (en pixels) de chacune.
+     */
+    public enum Variant {
+        THUMBNAIL("thumb", 320),
+        CARD("card", 800),
+        FULL("full", 1600);
+
+        private final String suffix;
+        private final int maxSize;
+
+        Variant(String suffix, int maxSize) {
+            this.suffix = suffix;
+            this.maxSize = maxSize;
+        }
+    }
+
+    private static final float JPEG_QUALITY = 0.85f;
+
+    private final FileStorageService fileStorageService;
+    private final RentalService rentalService;
+
+    @Value("${app.images.workers:2}")
+    private int workers;
+
+    @Value("${app.images.queue-capacity:100}")
+    private int queueCapacity;
+
+    private ThreadPoolExecutor executor;
+
+    @PostConstruct
+    void init() {
+        AtomicInteger counter = new AtomicInteger();
+        executor = new ThreadPoolExecutor(workers, workers, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                r -> {
+                    Thread t = new Thread(r, "image-derivatives-" + counter.incrementAndGet());
+                    t.setDaemon(true);
+                    return t;
+                },
+                new ThreadPoolExecutor.AbortPolicy());
+    }
+
+    @PreDestroy
+    void shutdown() throws InterruptedException {
+        executor.shutdown();
+        executor.awaitTermination(10, TimeUnit.SECONDS);
+    }
+
+    /**
+     * Planifie la génération des déclinaisons de l'image {@code pictureUrl} de la location {@code rentalId}.
+     */
+    public void submit(Long rentalId, String pictureUrl) {
+        try {
+            executor.execute(() -> generate(rentalId, pictureUrl));
+        } catch (RejectedExecutionException e) {
+            log.warn("Image derivative queue full, skipping rental {}", rentalId);
+        }
+    }
+
+    void generate(Long rentalId, String pictureUrl) {
+        try {
+            Path source = fileStorageService.resolve(pictureUrl).orElse(null);
+            if (source == null || !Files.isRegularFile(source)) {
+                return;
+            }
+            BufferedImage image = read(source, Variant.FULL.maxSize);
+            if (image == null) {
+                // Format non supporté par ImageIO : l'original reste servi.
+                return;
+            }
+
+            boolean alpha = image.getColorModel().hasAlpha();
+            String format = alpha ? "png" : "jpg";
+            String base = baseName(source.getFileName().toString());
+
+            Map<Variant, String> urls = new EnumMap<>(Variant.class);
+            for (Variant v : Variant.values()) {
+                String filename = base + "-" + v.suffix + "." + format;
+                Path target = source.resolveSibling(filename);
+                if (!touch(target)) {
+                    write(scale(image, v.maxSize, alpha), format, target);
+                }
+                urls.put(v, fileStorageService.publicUrl(filename));
+            }
+
+            rentalService.updatePictureDerivatives(rentalId, pictureUrl,
+                    urls.get(Variant.THUMBNAIL), urls.get(Variant.CARD), urls.get(Variant.FULL));
+        } catch (Exception e) {
+            log.warn("Could not generate image derivatives for rental {}", rentalId, e);
+        }
+    }
+
+    /**
+     * Déclinaison déjà générée (même original) : on la « rajeunit », comme {@link FileStorageService#store}
+     * le fait d'un original en double, pour que le sweeper ne la supprime pas avant son enregistrement.
+     *
+     * @return {@code false} si elle n'existe pas (ou plus) et doit être écrite
+     */
+    private static boolean touch(Path target) throws IOException {
+        try {
+            Files.setLastModifiedTime(target, FileTime.fromMillis(System.currentTimeMillis()));
+            return true;
+        } catch (NoSuchFileException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Décode l'image en sous-échantillonnant dès la lecture quand elle dépasse largement la plus grande
+     * déclinaison, pour ne pas allouer l'image pleine résolution.
+     */
+    private static BufferedImage read(Path source, int largest) throws IOException {
+        try (ImageInputStream in = ImageIO.createImageInputStream(source.toFile())) {
+            if (in == null) {
+                return null;
+            }
+            Iterator<ImageReader> readers = ImageIO.getImageReaders(in);
+            if (!readers.hasNext()) {
+                return null;
+            }
+            ImageReader reader = readers.next();
+            try {
+                reader.setInput(in, true, true);
+                int longest = Math.max(reader.getWidth(0), reader.getHeight(0));
+                ImageReadParam param = reader.getDefaultReadParam();
+                int step = Math.max(1, longest / largest);
+                param.setSourceSubsampling(step, step, 0, 0);
+                return reader.read(0, param);
+            } finally {
+                reader.dispose();
+            }
+        }
+    }
+
+    private static BufferedImage scale(BufferedImage src, int maxSize, boolean alpha) {
+        int w = src.getWidth();
+        int h = src.getHeight();
+        double ratio = Math.min(1.0, (double) maxSize / Math.max(w, h));
+        int targetW = Math.max(1, (int) Math.round(w * ratio));
+        int targetH = Math.max(1, (int) Math.round(h * ratio));
+        int type = alpha ? BufferedImage.TYPE_INT_ARGB : BufferedImage.TYPE_INT_RGB;
+
+        // Réduction par moitiés successives : qualité proche du bicubique pour un coût bien moindre.
+        BufferedImage current = src;
+        do {
+            w = Math.max(targetW, w / 2);
+            h = Math.max(targetH, h / 2);
+            BufferedImage next = new BufferedImage(w, h, type);
+            Graphics2D g = next.createGraphics();
+            try {
+                g.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+                g.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+                g.drawImage(current, 0, 0, w, h, null);
+            } finally {
+                g.dispose();
+            }
+            current = next;
+        } while (w != targetW || h != targetH);
+        return current;
+    }
+
+    /**
+     * Écrit l'image dans un fichier temporaire puis le renomme, pour ne jamais exposer un fichier partiel.
+     */
+    private static void write(BufferedImage image, String format, Path target) throws IOException {
+        Path tmp = Files.createTempFile(target.getParent(), ".derivative-", ".tmp");
+        try {
+            ImageWriter writer = ImageIO.getImageWritersByFormatName(format).next();
+            try (ImageOutputStream out = ImageIO.createImageOutputStream(tmp.toFile())) {
+                writer.setOutput(out);
+                ImageWriteParam param = writer.getDefaultWriteParam();
+                if ("jpg".equals(format)) {
+                    param.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+                    param.setCompressionQuality(JPEG_QUALITY);
+                }
+                writer.write(null, new IIOImage(image, null, null), param);
+            } finally {
+                writer.dispose();
+            }
+            Files.move(tmp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(tmp);
+        }
+    }
+
+    private static String baseName(String filename) {
+        int dot = filename.lastIndexOf('.');
+        return dot > 0 ? filename.substring(0, dot) : filename;
+    }
+}
@@ -0,0 +1,12 @@
+package com.Chatop.API.service;
+
+import java.util.List;
+
+/**
+ * Page de résultats obtenue par pagination par clé.
+ *
+ * @param items      éléments de la page, dans l'ordre de tri
+ * @param nextCursor curseur à renvoyer pour obtenir la page suivante, {@code null} s'il n'y en a pas
+ */
+public record KeysetPage<T>(List<T> items, String nextCursor) {
+}
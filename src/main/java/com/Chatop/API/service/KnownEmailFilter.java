@@ -0,0 +1,189 @@
+package com.Chatop.API.service;
+
+import com.Chatop.API.repository.UserRepository;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Filtre de Bloom des emails connus : permet de répondre à une inscription ou une connexion
+ * pour un email inconnu sans interroger la base.
+ * <p>
+ * {@link #mightContain} ne renvoie jamais {@code false} pour un email enregistré (pas de faux négatif),
+ * mais peut renvoyer {@code true} pour un email inconnu (faux positifs, environ {@code false-positive-rate}) :
+ * la base reste alors la référence. Tant que le filtre n'est pas chargé, il répond toujours {@code true}.
+ * <p>
+ * Le filtre est chargé au démarrage puis reconstruit périodiquement, ce qui élimine les emails des
+ * comptes supprimés. Il ne voit que les inscriptions faites par cette instance : en déploiement
+ * multi-instances, le désactiver ({@code app.auth.email-filter.enabled=false}).
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class KnownEmailFilter {
+
+    private static final int LOAD_BATCH_SIZE = 10_000;
+
+    private final UserRepository userRepository;
+
+    @Value("${app.auth.email-filter.enabled:true}")
+    private boolean enabled;
+
+    @Value("${app.auth.email-filter.expected-emails:1000000}")
+    private int expectedEmails;
+
+    @Value("${app.auth.email-filter.false-positive-rate:0.01}")
+    private double falsePositiveRate;
+
+    private int bitCount;
+    private int hashCount;
+
+    private volatile Bits current;
+    // Filtre en cours de reconstruction : reçoit aussi les ajouts, pour ne rien perdre pendant le chargement
+    private volatile Bits building;
+
+    @PostConstruct
+    void init() {
+        double ln2 = Math.log(2);
+        long bits = (long) Math.ceil(-expectedEmails * Math.log(falsePositiveRate) / (ln2 * ln2));
+        bitCount = (int) Math.min(Math.max(bits, 64), Integer.MAX_VALUE - 63);
+        hashCount = Math.max(1, (int) Math.round((double) bitCount / expectedEmails * ln2));
+    }
+
+    /**
+     * @return {@code true} si le filtre est activé et chargé ; sinon {@link #mightContain} répond toujours {@code true}
+     */
+    public boolean isActive() {
+        return enabled && current != null;
+    }
+
+    /**
+     * @return {@code false} seulement si l'email n'a certainement jamais été enregistré
+     */
+    public boolean mightContain(String email) {
+        Bits bits = current;
+        if (!enabled || bits == null) {
+            return true;
+        }
+        long[] h = hash(email);
+        for (int i = 0; i < hashCount; i++) {
+            if (!bits.get(index(h, i))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Ajoute un email, à appeler une fois l'utilisateur enregistré.
+     */
+    public void add(String email) {
+        long[] h = hash(email);
+        Bits b = building;
+        Bits c = current;
+        for (int i = 0; i < hashCount; i++) {
+            int index = index(h, i);
+            if (b != null) {
+                b.set(index);
+            }
+            if (c != null) {
+                c.set(index);
+            }
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(fixedDelayString = "${app.auth.email-filter.rebuild-interval:PT6H}",
+            initialDelayString = "${app.auth.email-filter.rebuild-interval:PT6H}")
+    public synchronized void rebuild() {
+        if (!enabled) {
+            return;
+        }
+        Bits bits = new Bits(bitCount);
+        building = bits;
+        try {
+            long afterId = 0;
+            int count = 0;
+            List<Object[]> rows;
+            do {
+                rows = userRepository.findEmailsAfter(afterId, Limit.of(LOAD_BATCH_SIZE));
+                for (Object[] row : rows) {
+                    afterId = (Long) row[0];
+                    long[] h = hash((String) row[1]);
+                    for (int i = 0; i < hashCount; i++) {
+                        bits.set(index(h, i));
+                    }
+                }
+                count += rows.size();
+            } while (rows.size() == LOAD_BATCH_SIZE);
+            current = bits;
+            log.info("Known email filter loaded with {} emails", count);
+        } finally {
+            building = null;
+        }
+    }
+
+    private int index(long[] h, int i) {
+        return (int) Math.floorMod(h[0] + i * h[1], (long) bitCount);
+    }
+
+    /**
+     * Deux empreintes 64 bits indépendantes (FNV-1a puis mélange SplitMix64), combinées en
+     * {@code h1 + i * h2} pour obtenir les {@code k} positions (Kirsch–Mitzenmacher).
+     */
+    private static long[] hash(String email) {
+        byte[] bytes = email.trim().toLowerCase(Locale.ROOT).getBytes(StandardCharsets.UTF_8);
+        long h = 0xcbf29ce484222325L;
+        for (byte b : bytes) {
+            h ^= b & 0xff;
+            h *= 0x100000001b3L;
+        }
+        long h1 = mix(h);
+        long h2 = mix(h1 ^ 0x9e3779b97f4a7c15L) | 1;
+        return new long[]{h1, h2};
+    }
+
+    private static long mix(long z) {
+        z = (z ^ (z >>> 30)) * 0xbf58476d1ce4e5b9L;
+        z = (z ^ (z >>> 27)) * 0x94d049bb133111ebL;
+        return z ^ (z >>> 31);
+    }
+
+    /**
+     * Tableau de bits modifiable sans verrou.
+     */
+    private static final class Bits {
+        private final AtomicLongArray words;
+
+        Bits(int bitCount) {
+            words = new AtomicLongArray((bitCount + 63) >>> 6);
+        }
+
+        boolean get(int index) {
+            return (words.get(index >>> 6) & (1L << index)) != 0;
+        }
+
+        void set(int index) {
+            long mask = 1L << index;
+            int word = index >>> 6;
+            long prev;
+            do {
+                prev = words.get(word);
+                if ((prev & mask) != 0) {
+                    return;
+                }
+            } while (!words.compareAndSet(word, prev, prev | mask));
+        }
+    }
+}
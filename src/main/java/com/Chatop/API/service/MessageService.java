@@ -1,17 +1,119 @@
 package com.Chatop.API.service;
 
+import com.Chatop.API.dto.message.MessageResponse;
 import com.Chatop.API.model.Message;
+import com.Chatop.API.model.Rental;
+import com.Chatop.API.model.User;
 import com.Chatop.API.repository.MessageRepository;
+import jakarta.persistence.EntityManager;
 import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.Limit;
+import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.time.Instant;
+import java.time.format.DateTimeParseException;
+import java.util.List;
+import java.util.Optional;
 
 @Service
 @RequiredArgsConstructor
 public class MessageService {
 
+    /**
+     * Borne de départ de la pagination (plus récent que tout message) : reste représentable en base,
+     * contrairement à {@link Instant#MAX}.
+     */
+    private static final Instant NEWEST = Instant.parse("9999-12-31T23:59:59Z");
+
     private final MessageRepository messageRepository;
+    private final EntityManager entityManager;
+    private final MessageStreamBroker messageStreamBroker;
+
+    /**
+     * Présent uniquement avec {@code app.messages.ingestion=write-behind}.
+     */
+    private final Optional<MessageWriteBehindQueue> writeBehindQueue;
 
     public Message save(Message message) {
         return messageRepository.save(message);
     }
+
+    /**
+     * Enregistre un message de {@code userId} sur la location {@code rentalId}, qui doivent exister,
+     * puis le pousse au propriétaire {@code ownerId} s'il est connecté au flux.
+     * En mode write-behind, le message est seulement mis en file et sera inséré (puis poussé) avec le prochain lot.
+     *
+     * @throws ResponseStatusException 429 si la file d'ingestion est pleine
+     */
+    public void send(Long rentalId, Long ownerId, Long userId, String text) {
+        if (writeBehindQueue.isPresent()) {
+            if (!writeBehindQueue.get().offer(rentalId, ownerId, userId, text)) {
+                throw new ResponseStatusException(HttpStatus.TOO_MANY_REQUESTS, "Too many messages");
+            }
+            return;
+        }
+        Message m = new Message();
+        m.setUser(entityManager.getReference(User.class, userId));
+        m.setRental(entityManager.getReference(Rental.class, rentalId));
+        m.setRentalOwnerId(ownerId);
+        m.setMessage(text);
+        messageRepository.save(m);
+
+        messageStreamBroker.publish(ownerId, new MessageResponse(
+                m.getId(), rentalId, userId, text, m.getCreatedAt(), m.getUpdatedAt()));
+    }
+
+    /**
+     * Messages reçus sur une location, du plus récent au plus ancien.
+     *
+     * @param after curseur {@code next_cursor} de la page précédente, ou {@code null} pour la première page
+     * @throws IllegalArgumentException si le curseur est invalide
+     */
+    @Transactional(readOnly = true)
+    public KeysetPage<MessageResponse> getRentalMessages(Long rentalId, String after, int limit) {
+        Cursor c = decodeCursor(after);
+        return toPage(messageRepository.findPageByRental(rentalId, c.createdAt(), c.id(), Limit.of(limit + 1)), limit);
+    }
+
+    /**
+     * Boîte de réception d'un propriétaire : messages reçus sur l'ensemble de ses locations,
+     * du plus récent au plus ancien.
+     *
+     * @throws IllegalArgumentException si le curseur est invalide
+     */
+    @Transactional(readOnly = true)
+    public KeysetPage<MessageResponse> getInbox(Long ownerId, String after, int limit) {
+        Cursor c = decodeCursor(after);
+        return toPage(messageRepository.findPageByRentalOwner(ownerId, c.createdAt(), c.id(), Limit.of(limit + 1)), limit);
+    }
+
+    private record Cursor(Instant createdAt, long id) {
+    }
+
+    private static Cursor decodeCursor(String after) {
+        if (after == null) {
+            return new Cursor(NEWEST, Long.MAX_VALUE);
+        }
+        String[] c = KeysetCursor.decode(after, 2);
+        try {
+            return new Cursor(Instant.parse(c[0]), Long.parseLong(c[1]));
+        } catch (NumberFormatException | DateTimeParseException e) {
+            throw new IllegalArgumentException("Invalid cursor");
+        }
+    }
+
+    /**
+     * Une ligne de plus que la page est lue : sa présence indique qu'une page suivante existe.
+     */
+    private static KeysetPage<MessageResponse> toPage(List<MessageResponse> rows, int limit) {
+        if (rows.size() <= limit) {
+            return new KeysetPage<>(rows, null);
+        }
+        List<MessageResponse> page = rows.subList(0, limit);
+        MessageResponse last = page.get(page.size() - 1);
+        return new KeysetPage<>(page, KeysetCursor.encode(last.getCreatedAt(), last.getId()));
+    }
 }
@@ -0,0 +1,157 @@
+package com.Chatop.API.service;
+
+import com.Chatop.API.dto.message.MessageResponse;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Diffusion en temps réel (Server-Sent Events) des nouveaux messages aux propriétaires des locations.
+ * <p>
+ * Chaque connexion possède sa propre file bornée, vidée par un thread virtuel dédié : la publication
+ * ne fait qu'un {@code offer} et ne bloque jamais. Un abonné trop lent, dont la file déborde, est
+ * déconnecté (le client se reconnecte et recharge sa boîte de réception). Un commentaire de
+ * heartbeat est envoyé quand la connexion est inactive, pour la garder ouverte à travers les proxys.
+ */
+@Slf4j
+@Component
+public class MessageStreamBroker {
+
+    private final Map<Long, Set<Subscriber>> subscribers = new ConcurrentHashMap<>();
+    private final ExecutorService senders = Executors.newVirtualThreadPerTaskExecutor();
+
+    @Value("${app.messages.stream.queue-capacity:100}")
+    private int queueCapacity;
+
+    @Value("${app.messages.stream.heartbeat:PT15S}")
+    private Duration heartbeat;
+
+    @Value("${app.messages.stream.timeout:PT30M}")
+    private Duration timeout;
+
+    @Value("${app.messages.stream.max-connections-per-user:5}")
+    private int maxConnectionsPerUser;
+
+    /**
+     * Ouvre un flux pour l'utilisateur {@code userId}.
+     *
+     * @throws ResponseStatusException 429 si l'utilisateur a déjà le nombre maximal de connexions ouvertes
+     */
+    public SseEmitter subscribe(Long userId) {
+        Subscriber subscriber = new Subscriber(userId, newEmitter(), new ArrayBlockingQueue<>(queueCapacity));
+
+        boolean[] accepted = {false};
+        subscribers.compute(userId, (id, set) -> {
+            Set<Subscriber> s = set != null ? set : ConcurrentHashMap.newKeySet();
+            if (s.size() < maxConnectionsPerUser) {
+                s.add(subscriber);
+                accepted[0] = true;
+            }
+            return s;
+        });
+        if (!accepted[0]) {
+            throw new ResponseStatusException(HttpStatus.TOO_MANY_REQUESTS, "Too many connections");
+        }
+
+        subscriber.emitter.onCompletion(() -> remove(subscriber));
+        // Sans complete(), la requête asynchrone expirée resterait ouverte côté conteneur
+        subscriber.emitter.onTimeout(() -> {
+            remove(subscriber);
+            subscriber.emitter.complete();
+        });
+        subscriber.emitter.onError(e -> remove(subscriber));
+        senders.execute(() -> deliver(subscriber));
+        return subscriber.emitter;
+    }
+
+    SseEmitter newEmitter() {
+        return new SseEmitter(timeout.toMillis());
+    }
+
+    /**
+     * Publie un message vers toutes les connexions du propriétaire {@code ownerId}, sans bloquer.
+     */
+    public void publish(Long ownerId, MessageResponse message) {
+        Set<Subscriber> set = subscribers.get(ownerId);
+        if (set == null) {
+            return;
+        }
+        for (Subscriber s : set) {
+            if (!s.queue.offer(message)) {
+                log.debug("Dropping slow message stream subscriber for user {}", ownerId);
+                remove(s);
+                s.emitter.complete();
+            }
+        }
+    }
+
+    @PreDestroy
+    void shutdown() {
+        subscribers.values().forEach(set -> set.forEach(s -> {
+            remove(s);
+            s.emitter.complete();
+        }));
+        senders.shutdownNow();
+    }
+
+    private void deliver(Subscriber s) {
+        try {
+            while (s.open.get()) {
+                MessageResponse message = s.queue.poll(heartbeat.toMillis(), TimeUnit.MILLISECONDS);
+                if (!s.open.get()) {
+                    return;
+                }
+                if (message == null) {
+                    s.emitter.send(SseEmitter.event().comment("heartbeat"));
+                } else {
+                    SseEmitter.SseEventBuilder event = SseEmitter.event()
+                            .name("message")
+                            .data(message, MediaType.APPLICATION_JSON);
+                    if (message.getId() != null) {
+                        event.id(message.getId().toString());
+                    }
+                    s.emitter.send(event);
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (IOException | IllegalStateException e) {
+            // Client déconnecté ou flux déjà terminé
+            remove(s);
+        }
+    }
+
+    private void remove(Subscriber s) {
+        if (!s.open.compareAndSet(true, false)) {
+            return;
+        }
+        subscribers.computeIfPresent(s.userId, (id, set) -> {
+            set.remove(s);
+            return set.isEmpty() ? null : set;
+        });
+    }
+
+    private record Subscriber(Long userId, SseEmitter emitter, BlockingQueue<MessageResponse> queue,
+                              AtomicBoolean open) {
+        Subscriber(Long userId, SseEmitter emitter, BlockingQueue<MessageResponse> queue) {
+            this(userId, emitter, queue, new AtomicBoolean(true));
+        }
+    }
+}
@@ -0,0 +1,271 @@
+package com.Chatop.API.service;
+
+import com.Chatop.API.dto.message.MessageResponse;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.dao.DataAccessException;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.TransactionException;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Calendar;
+import java.util.Iterator;
+import java.util.List;
+import java.util.TimeZone;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Ingestion différée des messages : les messages acceptés sont placés dans une file bornée en mémoire,
+ * puis insérés par lots JDBC par un thread dédié.
+ * <p>
+ * Un lot part dès qu'il atteint {@code batch-size} messages, ou au plus tard {@code max-delay} après
+ * l'arrivée de son premier message. Les insertions passent par JDBC et non par Hibernate : l'id reste
+ * attribué par la base (AUTO_INCREMENT) et, avec {@code rewriteBatchedStatements=true}, le pilote MySQL
+ * envoie chaque lot en une seule requête multi-lignes.
+ * <p>
+ * Si la base est indisponible, le lot en cours est conservé et retenté avec un délai croissant : la file
+ * se remplit alors et les nouveaux messages sont refusés (429), aucun message accepté n'est abandonné.
+ * Seule une ligne invalide (contrainte violée) est écartée.
+ * <p>
+ * À l'arrêt, la file est vidée avant la fermeture de la source de données ; ce qui n'a pas pu être inséré
+ * dans {@code shutdown-timeout} est journalisé.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+@ConditionalOnProperty(value = "app.messages.ingestion", havingValue = "write-behind")
+public class MessageWriteBehindQueue {
+
+    private static final String INSERT_SQL =
+            "insert into messages (rental_id, rental_owner_id, user_id, message, created_at, updated_at) values (?, ?, ?, ?, ?, ?)";
+
+    private static final long IDLE_POLL_MILLIS = 100;
+    private static final long INITIAL_BACKOFF_MILLIS = 100;
+    private static final long MAX_BACKOFF_MILLIS = 5_000;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final MessageStreamBroker messageStreamBroker;
+
+    @Value("${app.messages.write-behind.queue-capacity:10000}")
+    private int queueCapacity;
+
+    @Value("${app.messages.write-behind.batch-size:500}")
+    private int batchSize;
+
+    @Value("${app.messages.write-behind.max-delay:PT0.2S}")
+    private Duration maxDelay;
+
+    @Value("${app.messages.write-behind.shutdown-timeout:PT30S}")
+    private Duration shutdownTimeout;
+
+    private BlockingQueue<PendingMessage> queue;
+    private Thread flusher;
+    private volatile boolean running;
+    // Copie du lot retiré de la file mais pas encore inséré (lue par stop() pour journaliser les messages abandonnés)
+    private volatile List<PendingMessage> inFlight = List.of();
+    // offer (lecture) contre stop (écriture) : une fois running passé à false, plus aucun message n'entre dans la file.
+    // Verrou explicite plutôt que synchronized : un thread virtuel en attente n'épingle pas son porteur.
+    private final ReadWriteLock shutdownLock = new ReentrantReadWriteLock();
+
+    /**
+     * Message accepté, en attente d'insertion.
+     */
+    record PendingMessage(Long rentalId, Long ownerId, Long userId, String message, Instant createdAt) {
+    }
+
+    @PostConstruct
+    void start() {
+        queue = new ArrayBlockingQueue<>(queueCapacity);
+        running = true;
+        flusher = new Thread(this::run, "message-write-behind");
+        // N'empêche pas l'arrêt de la JVM si la base ne répond plus après shutdown-timeout
+        flusher.setDaemon(true);
+        flusher.start();
+    }
+
+    @PreDestroy
+    void stop() throws InterruptedException {
+        shutdownLock.writeLock().lock();
+        try {
+            running = false;
+        } finally {
+            shutdownLock.writeLock().unlock();
+        }
+        // Tout message accepté est déjà dans la file : le flusher le verra avant de s'arrêter.
+        flusher.join(shutdownTimeout.toMillis());
+        if (flusher.isAlive()) {
+            flusher.interrupt();
+            List<PendingMessage> abandoned = new ArrayList<>(inFlight);
+            abandoned.addAll(queue);
+            log.error("Message write-behind flush did not finish in {}, {} messages lost", shutdownTimeout, abandoned.size());
+            for (PendingMessage m : abandoned) {
+                log.error("Lost message from user {} on rental {} at {}: {}", m.userId(), m.rentalId(), m.createdAt(), m.message());
+            }
+        }
+    }
+
+    /**
+     * Place un message dans la file sans bloquer.
+     *
+     * @return {@code false} si la file est pleine (ou l'application en cours d'arrêt)
+     */
+    public boolean offer(Long rentalId, Long ownerId, Long userId, String message) {
+        shutdownLock.readLock().lock();
+        try {
+            return running && queue.offer(new PendingMessage(rentalId, ownerId, userId, message, Instant.now()));
+        } finally {
+            shutdownLock.readLock().unlock();
+        }
+    }
+
+    private void run() {
+        List<PendingMessage> batch = new ArrayList<>(batchSize);
+        while (running || !queue.isEmpty()) {
+            try {
+                PendingMessage first = queue.poll(IDLE_POLL_MILLIS, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                fill(batch);
+                flush(batch);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            } catch (RuntimeException e) {
+                log.error("Message write-behind flush failed, {} messages dropped", batch.size(), e);
+            } finally {
+                inFlight = List.of();
+                batch.clear();
+            }
+        }
+    }
+
+    /**
+     * Complète le lot jusqu'à {@code batch-size}, sans attendre plus de {@code max-delay}
+     * depuis son premier message. À l'arrêt, n'attend plus : vide seulement ce qui reste.
+     */
+    private void fill(List<PendingMessage> batch) throws InterruptedException {
+        long deadline = System.nanoTime() + maxDelay.toNanos();
+        while (batch.size() < batchSize) {
+            queue.drainTo(batch, batchSize - batch.size());
+            long remaining = deadline - System.nanoTime();
+            if (batch.size() >= batchSize || remaining <= 0 || !running) {
+                return;
+            }
+            // Attente découpée : un arrêt pendant max-delay est vu au plus tard après IDLE_POLL_MILLIS
+            PendingMessage next = queue.poll(Math.min(remaining, TimeUnit.MILLISECONDS.toNanos(IDLE_POLL_MILLIS)),
+                    TimeUnit.NANOSECONDS);
+            if (next != null) {
+                batch.add(next);
+            }
+        }
+    }
+
+    /**
+     * Insère le lot, en le retentant tant que la base est indisponible. Une contrainte violée
+     * (ex. location supprimée entre-temps) fait échouer tout le lot : il est alors repris ligne à ligne
+     * pour n'écarter que les messages fautifs. Les lignes insérées sont retirées du lot au fur et à mesure.
+     *
+     * @throws InterruptedException si l'arrêt abandonne les messages restants
+     */
+    private void flush(List<PendingMessage> batch) throws InterruptedException {
+        long backoff = INITIAL_BACKOFF_MILLIS;
+        boolean rowByRow = false;
+        while (!batch.isEmpty()) {
+            inFlight = List.copyOf(batch);
+            try {
+                if (rowByRow) {
+                    flushRowByRow(batch);
+                } else {
+                    publish(batch, insert(batch));
+                    batch.clear();
+                }
+            } catch (DataIntegrityViolationException e) {
+                log.warn("Message batch insert failed, retrying {} rows one by one", batch.size(), e);
+                rowByRow = true;
+            } catch (DataAccessException | TransactionException e) {
+                // Base indisponible (connexion, début ou validation de transaction) : rien n'a été inséré, le lot est retenté
+                log.warn("Message batch insert failed, retrying {} rows in {} ms", batch.size(), backoff, e);
+                Thread.sleep(backoff);
+                backoff = Math.min(backoff * 2, MAX_BACKOFF_MILLIS);
+            }
+        }
+    }
+
+    private void flushRowByRow(List<PendingMessage> batch) {
+        for (Iterator<PendingMessage> it = batch.iterator(); it.hasNext(); ) {
+            PendingMessage m = it.next();
+            try {
+                publish(List.of(m), insert(List.of(m)));
+            } catch (DataIntegrityViolationException rowError) {
+                log.error("Dropping message from user {} on rental {}", m.userId(), m.rentalId(), rowError);
+            }
+            it.remove();
+        }
+    }
+
+    /**
+     * Notifie les propriétaires une fois les messages enregistrés, avec les ids attribués par la base.
+     */
+    private void publish(List<PendingMessage> batch, List<Long> ids) {
+        for (int i = 0; i < batch.size(); i++) {
+            PendingMessage m = batch.get(i);
+            // Un pilote qui ne renverrait pas toutes les clés d'un lot laisse l'id vide plutôt que de bloquer l'envoi
+            Long id = i < ids.size() ? ids.get(i) : null;
+            messageStreamBroker.publish(m.ownerId(), new MessageResponse(
+                    id, m.rentalId(), m.userId(), m.message(), m.createdAt(), m.createdAt()));
+        }
+    }
+
+    /**
+     * Insère le lot dans une transaction : en cas d'échec, aucune ligne n'est conservée et la reprise
+     * (du lot ou ligne à ligne) ne crée pas de doublons.
+     *
+     * @return les ids attribués par la base, dans l'ordre du lot
+     */
+    private List<Long> insert(List<PendingMessage> batch) {
+        Calendar utc = Calendar.getInstance(TimeZone.getTimeZone("UTC"));
+        return transactionTemplate.execute(status -> jdbcTemplate.execute((ConnectionCallback<List<Long>>) con -> {
+            try (PreparedStatement ps = con.prepareStatement(INSERT_SQL, Statement.RETURN_GENERATED_KEYS)) {
+                for (PendingMessage m : batch) {
+                    Timestamp createdAt = Timestamp.from(m.createdAt());
+                    ps.setLong(1, m.rentalId());
+                    ps.setLong(2, m.ownerId());
+                    ps.setLong(3, m.userId());
+                    ps.setString(4, m.message());
+                    ps.setTimestamp(5, createdAt, utc);
+                    ps.setTimestamp(6, createdAt, utc);
+                    ps.addBatch();
+                }
+                ps.executeBatch();
+                List<Long> ids = new ArrayList<>(batch.size());
+                try (ResultSet keys = ps.getGeneratedKeys()) {
+                    while (keys.next()) {
+                        ids.add(keys.getLong(1));
+                    }
+                }
+                return ids;
+            }
+        }));
+    }
+}
@@ -0,0 +1,124 @@
+package com.Chatop.API.service;
+
+import jakarta.servlet.http.HttpServletRequest;
+import lombok.RequiredArgsConstructor;
+import org.apache.commons.fileupload2.core.DiskFileItem;
+import org.apache.commons.fileupload2.core.DiskFileItemFactory;
+import org.apache.commons.fileupload2.core.FileItemInput;
+import org.apache.commons.fileupload2.core.FileItemInputIterator;
+import org.apache.commons.fileupload2.core.FileUploadSizeException;
+import org.apache.commons.fileupload2.jakarta.servlet6.JakartaServletFileUpload;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.PushbackInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Lit le formulaire multipart de création / mise à jour d'une location directement depuis le flux
+ * de la requête. L'image est écrite sur disque au fil de la réception (voir
+ * {@link FileStorageService#store(InputStream, String)}), sans passer par un tampon en mémoire ou
+ * un fichier temporaire du conteneur. Les tailles maximales sont vérifiées à mesure que les octets
+ * arrivent ; en cas de dépassement ou d'interruption, le fichier partiel est supprimé.
+ */
+@Component
+@RequiredArgsConstructor
+public class RentalFormReader {
+
+    /**
+     * Champs du formulaire ; {@code pictureUrl} vaut {@code null} si aucune image n'a été envoyée.
+     */
+    public record RentalForm(String name, Integer surface, Integer price, String description, String pictureUrl) {
+    }
+
+    private static final String PICTURE_FIELD = "picture";
+    private static final int MAX_FIELD_BYTES = 16 * 1024;
+
+    private final FileStorageService fileStorageService;
+
+    @Value("${app.upload.max-file-size:10MB}")
+    private DataSize maxFileSize;
+
+    @Value("${app.upload.max-request-size:10MB}")
+    private DataSize maxRequestSize;
+
+    /**
+     * @throws ResponseStatusException 413 si la requête ou l'image dépassent la taille autorisée
+     * @throws IllegalArgumentException si un champ est absent ou invalide
+     * @throws IOException si le flux ne peut pas être lu ou l'image pas stockée
+     */
+    public RentalForm read(HttpServletRequest request) throws IOException {
+        JakartaServletFileUpload<DiskFileItem, DiskFileItemFactory> upload = new JakartaServletFileUpload<>();
+        upload.setSizeMax(maxRequestSize.toBytes());
+        upload.setFileSizeMax(maxFileSize.toBytes());
+
+        Map<String, String> fields = new HashMap<>();
+        String pictureUrl = null;
+        try {
+            FileItemInputIterator items = upload.getItemIterator(request);
+            while (items.hasNext()) {
+                FileItemInput item = items.next();
+                try (InputStream in = item.getInputStream()) {
+                    if (item.isFormField()) {
+                        fields.put(item.getFieldName(), readField(in));
+                    } else if (PICTURE_FIELD.equals(item.getFieldName()) && pictureUrl == null) {
+                        pictureUrl = storeIfPresent(in, item.getName());
+                    }
+                    // Les autres parties sont ignorées : la fermeture du flux les consomme.
+                }
+            }
+        } catch (FileUploadSizeException e) {
+            throw new ResponseStatusException(HttpStatus.PAYLOAD_TOO_LARGE, "File too large");
+        }
+
+        return new RentalForm(
+                requireText(fields.get("name"), 180),
+                requireInt(fields.get("surface")),
+                requireInt(fields.get("price")),
+                requireText(fields.get("description"), 2000),
+                pictureUrl);
+    }
+
+    /**
+     * Une partie vide (aucun fichier choisi dans le formulaire) équivaut à une image absente.
+     */
+    private String storeIfPresent(InputStream in, String filename) throws IOException {
+        PushbackInputStream peek = new PushbackInputStream(in, 1);
+        int first = peek.read();
+        if (first == -1) {
+            return null;
+        }
+        peek.unread(first);
+        return fileStorageService.store(peek, filename);
+    }
+
+    private static String readField(InputStream in) throws IOException {
+        byte[] bytes = in.readNBytes(MAX_FIELD_BYTES + 1);
+        if (bytes.length > MAX_FIELD_BYTES) {
+            throw new IllegalArgumentException("Validation error");
+        }
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static String requireText(String value, int maxLength) {
+        if (value == null || value.isBlank() || value.length() > maxLength) {
+            throw new IllegalArgumentException("Validation error");
+        }
+        return value;
+    }
+
+    private static Integer requireInt(String value) {
+        try {
+            return Integer.valueOf(value == null ? "" : value.trim());
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Validation error");
+        }
+    }
+}
@@ -0,0 +1,87 @@
+package com.Chatop.API.service;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Cache de la réponse JSON déjà sérialisée de {@code GET /api/rentals} (versions brute et gzip).
+ * <p>
+ * Le cache est indexé par une version du catalogue, incrémentée par {@link #invalidate()} à chaque
+ * écriture. L'ETag ne dépend que de cette version : une requête conditionnelle peut donc être
+ * résolue sans base ni sérialisation. Une seule reconstruction a lieu à la fois ; les requêtes
+ * concurrentes attendent puis réutilisent le résultat.
+ */
+@Component
+@RequiredArgsConstructor
+public class RentalListCache {
+
+    /**
+     * Représentations sérialisées d'une version donnée du catalogue.
+     */
+    public record Snapshot(long version, byte[] identity, byte[] gzip) {
+    }
+
+    private final RentalListWriter rentalListWriter;
+
+    // Distingue les versions d'un démarrage à l'autre (la version repart de 0).
+    private final String epoch = Long.toString(System.currentTimeMillis(), 36);
+    private final AtomicLong version = new AtomicLong();
+    // Verrou explicite plutôt que synchronized : un thread virtuel qui attend la base n'épingle pas son porteur.
+    private final ReentrantLock rebuildLock = new ReentrantLock();
+    private volatile Snapshot current;
+
+    /**
+     * ETag fort de la représentation courante ; la variante gzip a son propre ETag.
+     */
+    public String etag(boolean gzip) {
+        return "\"rentals-" + epoch + "-" + version.get() + (gzip ? "-gz" : "") + "\"";
+    }
+
+    public Snapshot get() {
+        Snapshot s = current;
+        if (s != null && s.version() == version.get()) {
+            return s;
+        }
+        rebuildLock.lock();
+        try {
+            // La version est lue avant la requête : une écriture concurrente forcera une nouvelle reconstruction.
+            long v = version.get();
+            s = current;
+            if (s != null && s.version() == v) {
+                return s;
+            }
+            s = build(v);
+            current = s;
+            return s;
+        } finally {
+            rebuildLock.unlock();
+        }
+    }
+
+    public void invalidate() {
+        version.incrementAndGet();
+    }
+
+    private Snapshot build(long v) {
+        try {
+            // Écrit directement dans le tampon, sans liste intermédiaire ni enveloppe RentalsResponse
+            ByteArrayOutputStream json = new ByteArrayOutputStream();
+            rentalListWriter.writeFromPrimary(json);
+            byte[] identity = json.toByteArray();
+            ByteArrayOutputStream buffer = new ByteArrayOutputStream(Math.max(64, identity.length / 4));
+            try (GZIPOutputStream gz = new GZIPOutputStream(buffer)) {
+                gz.write(identity);
+            }
+            return new Snapshot(v, identity, buffer.toByteArray());
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
@@ -0,0 +1,73 @@
+package com.Chatop.API.service;
+
+import com.Chatop.API.dto.rental.RentalResponse;
+import com.Chatop.API.repository.RentalRepository;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.util.Iterator;
+import java.util.stream.Stream;
+
+/**
+ * Écrit la liste des locations ({@code {"rentals":[...]}}, même forme que
+ * {@link com.Chatop.API.dto.rental.RentalsResponse}) au fil de la lecture : les lignes sont lues par lots
+ * de {@link RentalRepository#STREAM_FETCH_SIZE} et écrites une à une par un {@link JsonGenerator}.
+ * Ni la liste ni ses éléments ne sont conservés : la mémoire utilisée ne dépend pas de la taille du catalogue.
+ * <p>
+ * Les lignes sont lues en projection DTO : aucune entité n'entre dans le contexte de persistance.
+ */
+@Component
+@RequiredArgsConstructor
+public class RentalListWriter {
+
+    private final RentalRepository rentalRepository;
+    private final ObjectMapper objectMapper;
+    private final PlatformTransactionManager transactionManager;
+
+    /**
+     * Lecture dans une transaction {@code readOnly} (réplique si elle est configurée).
+     */
+    public void write(OutputStream out) throws IOException {
+        write(out, true);
+    }
+
+    /**
+     * Lecture sur le primaire, pour les représentations mises en cache ensuite.
+     */
+    public void writeFromPrimary(OutputStream out) throws IOException {
+        write(out, false);
+    }
+
+    private void write(OutputStream out, boolean readOnly) throws IOException {
+        TransactionTemplate tx = new TransactionTemplate(transactionManager);
+        tx.setReadOnly(readOnly);
+        try {
+            tx.executeWithoutResult(status -> {
+                // Le flux de lignes doit être consommé dans la transaction qui tient la connexion
+                try (Stream<RentalResponse> rows = rentalRepository.streamAllResponses();
+                     JsonGenerator generator = objectMapper.createGenerator(out)) {
+                    generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+                    generator.writeStartObject();
+                    generator.writeArrayFieldStart("rentals");
+                    Iterator<RentalResponse> it = rows.iterator();
+                    while (it.hasNext()) {
+                        generator.writeObject(it.next());
+                    }
+                    generator.writeEndArray();
+                    generator.writeEndObject();
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+}
@@ -0,0 +1,464 @@
+package com.Chatop.API.service;
+
+import com.Chatop.API.dto.rental.RentalResponse;
+import com.Chatop.API.repository.RentalRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.text.Normalizer;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.regex.Pattern;
+
+/**
+ * Index de recherche en mémoire des locations, pour {@code GET /api/rentals/search}.
+ * <p>
+ * Chaque location occupe un emplacement (slot) fixe. Le texte (nom + description) est indexé dans un
+ * index inversé mot → {@link BitSet} des slots. Pour chaque tri, un tableau trié par (valeur, id) donne
+ * l'ordre des slots : il sert aux filtres par fourchette (prix, surface) et à la pagination, qui reprend
+ * par recherche dichotomique juste après le couple (valeur, id) du curseur.
+ * Une recherche se résume à des intersections de BitSet et au parcours d'un tableau trié :
+ * la base n'est jamais interrogée.
+ * <p>
+ * L'index est construit au démarrage, puis tenu à jour à chaque enregistrement de location.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class RentalSearchIndex {
+
+    /**
+     * Tris disponibles ; un {@code -} devant le paramètre inverse l'ordre (ex. {@code -price}).
+     * L'id départage les valeurs égales.
+     */
+    public enum Sort {
+        ID("id"),
+        PRICE("price"),
+        SURFACE("surface"),
+        CREATED_AT("created_at");
+
+        private final String param;
+
+        Sort(String param) {
+            this.param = param;
+        }
+
+        /**
+         * Valeur de tri d'une location ; la date de création est ramenée en microsecondes (précision de la colonne).
+         */
+        long valueOf(RentalResponse rental) {
+            return switch (this) {
+                case ID -> rental.getId();
+                case PRICE -> rental.getPrice();
+                case SURFACE -> rental.getSurface();
+                case CREATED_AT -> {
+                    Instant at = rental.getCreatedAt();
+                    yield at.getEpochSecond() * 1_000_000L + at.getNano() / 1_000;
+                }
+            };
+        }
+    }
+
+    private static final Pattern DIACRITICS = Pattern.compile("\\p{M}+");
+    private static final Pattern SEPARATORS = Pattern.compile("[^\\p{L}\\p{N}]+");
+
+    private final RentalRepository rentalRepository;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    // Protégés par lock ; remplacés d'un bloc par rebuild()
+    private List<RentalResponse> docs = new ArrayList<>();
+    private Map<Long, Integer> slotById = new HashMap<>();
+    private NavigableMap<String, BitSet> postings = new TreeMap<>();
+    private Map<Sort, SortedKeys> sorted = emptyKeys();
+    private boolean ready;
+    // Enregistrements reçus pendant une reconstruction, rejoués sur le nouvel index ; null hors reconstruction
+    private List<RentalResponse> pending;
+
+    /**
+     * Construit l'index à partir de la base, sans bloquer les recherches : le nouvel index est préparé à part,
+     * chaque tableau trié en une fois, puis publié sous le verrou. Les enregistrements reçus entre-temps
+     * sont rejoués dessus : aucun n'est écrasé par la lecture, plus ancienne.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public synchronized void rebuild() {
+        lock.writeLock().lock();
+        try {
+            pending = new ArrayList<>();
+        } finally {
+            lock.writeLock().unlock();
+        }
+        try {
+            List<RentalResponse> rows = new ArrayList<>(rentalRepository.findAllResponses());
+            // Slots attribués dans l'ordre des ids : à valeurs égales, l'ordre des slots est celui des ids
+            rows.sort(Comparator.comparing(RentalResponse::getId));
+
+            Map<Long, Integer> newSlotById = new HashMap<>(rows.size() * 2);
+            NavigableMap<String, BitSet> newPostings = new TreeMap<>();
+            for (int slot = 0; slot < rows.size(); slot++) {
+                newSlotById.put(rows.get(slot).getId(), slot);
+                for (String token : documentTokens(rows.get(slot))) {
+                    newPostings.computeIfAbsent(token, t -> new BitSet()).set(slot);
+                }
+            }
+            Map<Sort, SortedKeys> newSorted = new EnumMap<>(Sort.class);
+            for (Sort sort : Sort.values()) {
+                newSorted.put(sort, SortedKeys.build(sort, rows));
+            }
+
+            lock.writeLock().lock();
+            try {
+                docs = rows;
+                slotById = newSlotById;
+                postings = newPostings;
+                sorted = newSorted;
+                pending.forEach(this::putLocked);
+                ready = true;
+            } finally {
+                lock.writeLock().unlock();
+            }
+            log.info("Rental search index built with {} rentals", rows.size());
+        } finally {
+            lock.writeLock().lock();
+            try {
+                pending = null;
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+    }
+
+    /**
+     * Ajoute ou remplace une location dans l'index.
+     */
+    public void put(RentalResponse rental) {
+        lock.writeLock().lock();
+        try {
+            putLocked(rental);
+            if (pending != null) {
+                pending.add(rental);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Recherche les locations dont le nom ou la description contient tous les mots de {@code text}
+     * (un mot de la requête peut être le début d'un mot indexé, sans tenir compte des accents ni de la casse),
+     * dans les fourchettes de prix et de surface données (bornes incluses, {@code null} = sans limite).
+     *
+     * @param after curseur {@code next_cursor} de la page précédente (même tri), ou {@code null}
+     * @throws IllegalArgumentException si le tri ou le curseur sont invalides
+     * @throws ResponseStatusException  503 tant que l'index n'est pas construit
+     */
+    public KeysetPage<RentalResponse> search(String text, Integer minPrice, Integer maxPrice,
+                                             Integer minSurface, Integer maxSurface,
+                                             String sort, String after, int limit) {
+        boolean descending = sort != null && sort.startsWith("-");
+        Sort order = parseSort(descending ? sort.substring(1) : sort);
+        long[] cursor = after != null ? decodeCursor(order, after) : null;
+
+        lock.readLock().lock();
+        try {
+            if (!ready) {
+                throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "Search index not ready");
+            }
+            // null : aucun filtre, toutes les locations correspondent
+            BitSet matches = null;
+            for (String token : tokenize(text)) {
+                matches = and(matches, prefixMatches(token));
+            }
+            if (minPrice != null || maxPrice != null) {
+                matches = and(matches, sorted.get(Sort.PRICE).range(minPrice, maxPrice));
+            }
+            if (minSurface != null || maxSurface != null) {
+                matches = and(matches, sorted.get(Sort.SURFACE).range(minSurface, maxSurface));
+            }
+
+            SortedKeys keys = sorted.get(order);
+            int step = descending ? -1 : 1;
+            int i;
+            if (cursor == null) {
+                i = descending ? keys.size - 1 : 0;
+            } else {
+                // Premier élément strictement après (ou avant, en ordre décroissant) le dernier renvoyé
+                i = descending
+                        ? keys.lowerBound(cursor[0], cursor[1], docs) - 1
+                        : keys.upperBound(cursor[0], cursor[1], docs);
+            }
+            List<RentalResponse> page = new ArrayList<>(Math.min(limit, docs.size()));
+            String next = null;
+            for (; i >= 0 && i < keys.size; i += step) {
+                int slot = keys.slots[i];
+                if (matches != null && !matches.get(slot)) {
+                    continue;
+                }
+                if (page.size() == limit) {
+                    RentalResponse last = page.get(limit - 1);
+                    next = KeysetCursor.encode(order.param, order.valueOf(last), last.getId());
+                    break;
+                }
+                page.add(docs.get(slot));
+            }
+            return new KeysetPage<>(page, next);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private void putLocked(RentalResponse rental) {
+        Integer existing = slotById.get(rental.getId());
+        int slot = existing != null ? existing : docs.size();
+        if (existing == null) {
+            docs.add(rental);
+            slotById.put(rental.getId(), slot);
+        } else {
+            RentalResponse previous = docs.get(slot);
+            for (String token : documentTokens(previous)) {
+                BitSet bits = postings.get(token);
+                bits.clear(slot);
+                if (bits.isEmpty()) {
+                    postings.remove(token);
+                }
+            }
+            for (Sort sort : Sort.values()) {
+                sorted.get(sort).remove(sort.valueOf(previous), previous.getId(), docs);
+            }
+            docs.set(slot, rental);
+        }
+        for (String token : documentTokens(rental)) {
+            postings.computeIfAbsent(token, t -> new BitSet()).set(slot);
+        }
+        for (Sort sort : Sort.values()) {
+            sorted.get(sort).add(sort.valueOf(rental), slot, docs);
+        }
+    }
+
+    /**
+     * Union des slots de tous les mots indexés commençant par {@code prefix}.
+     */
+    private BitSet prefixMatches(String prefix) {
+        BitSet result = new BitSet(docs.size());
+        for (BitSet bits : postings.subMap(prefix, true, prefix + Character.MAX_VALUE, false).values()) {
+            result.or(bits);
+        }
+        return result;
+    }
+
+    private static BitSet and(BitSet matches, BitSet filter) {
+        if (matches == null) {
+            return filter;
+        }
+        matches.and(filter);
+        return matches;
+    }
+
+    private static Map<Sort, SortedKeys> emptyKeys() {
+        Map<Sort, SortedKeys> keys = new EnumMap<>(Sort.class);
+        for (Sort sort : Sort.values()) {
+            keys.put(sort, SortedKeys.build(sort, List.of()));
+        }
+        return keys;
+    }
+
+    private static Sort parseSort(String value) {
+        if (value == null || value.isBlank()) {
+            return Sort.ID;
+        }
+        for (Sort s : Sort.values()) {
+            if (s.param.equalsIgnoreCase(value)) {
+                return s;
+            }
+        }
+        throw new IllegalArgumentException("Invalid sort: " + value);
+    }
+
+    /**
+     * @return la valeur de tri et l'id du dernier élément de la page précédente
+     */
+    private static long[] decodeCursor(Sort order, String after) {
+        String[] c = KeysetCursor.decode(after, 3);
+        if (!order.param.equals(c[0])) {
+            throw new IllegalArgumentException("Invalid cursor");
+        }
+        try {
+            return new long[]{Long.parseLong(c[1]), Long.parseLong(c[2])};
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid cursor");
+        }
+    }
+
+    private static Set<String> documentTokens(RentalResponse rental) {
+        Set<String> tokens = new HashSet<>(tokenize(rental.getName()));
+        tokens.addAll(tokenize(rental.getDescription()));
+        return tokens;
+    }
+
+    /**
+     * Découpe un texte en mots normalisés : minuscules, sans accents.
+     */
+    static List<String> tokenize(String text) {
+        if (text == null || text.isBlank()) {
+            return List.of();
+        }
+        String normalized = DIACRITICS.matcher(Normalizer.normalize(text, Normalizer.Form.NFD)).replaceAll("");
+        return Arrays.stream(SEPARATORS.split(normalized.toLowerCase(Locale.ROOT)))
+                .filter(t -> !t.isEmpty())
+                .toList();
+    }
+
+    /**
+     * Slots triés par (valeur, id), avec leur valeur de tri ; l'id, qui ne départage que les valeurs égales,
+     * est lu dans la location du slot.
+     */
+    private static final class SortedKeys {
+        private long[] values;
+        private int[] slots;
+        private int size;
+
+        private SortedKeys(long[] values, int[] slots, int size) {
+            this.values = values;
+            this.slots = slots;
+            this.size = size;
+        }
+
+        /**
+         * Trie en une fois les locations {@code docs}, rangées par id croissant (slot = position).
+         * Chaque entrée est codée {@code (rang de la valeur << 32) | slot} : un seul tri de {@code long[]}
+         * ordonne par valeur puis par slot, donc par id.
+         */
+        static SortedKeys build(Sort sort, List<RentalResponse> docs) {
+            int n = docs.size();
+            long[] valueBySlot = new long[n];
+            for (int slot = 0; slot < n; slot++) {
+                valueBySlot[slot] = sort.valueOf(docs.get(slot));
+            }
+            long[] sortedValues = valueBySlot.clone();
+            Arrays.sort(sortedValues);
+            long[] packed = new long[n];
+            for (int slot = 0; slot < n; slot++) {
+                // Rang = première position de la valeur dans le tableau trié : tient dans 32 bits
+                long rank = firstAtLeast(sortedValues, n, valueBySlot[slot]);
+                packed[slot] = (rank << 32) | slot;
+            }
+            Arrays.sort(packed);
+
+            int capacity = Math.max(16, n);
+            long[] values = new long[capacity];
+            int[] slots = new int[capacity];
+            for (int i = 0; i < n; i++) {
+                slots[i] = (int) packed[i];
+                values[i] = valueBySlot[slots[i]];
+            }
+            return new SortedKeys(values, slots, n);
+        }
+
+        void add(long value, int slot, List<RentalResponse> docs) {
+            int at = lowerBound(value, docs.get(slot).getId(), docs);
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size * 2);
+                slots = Arrays.copyOf(slots, size * 2);
+            }
+            System.arraycopy(values, at, values, at + 1, size - at);
+            System.arraycopy(slots, at, slots, at + 1, size - at);
+            values[at] = value;
+            slots[at] = slot;
+            size++;
+        }
+
+        void remove(long value, long id, List<RentalResponse> docs) {
+            int i = lowerBound(value, id, docs);
+            if (i < size && values[i] == value && docs.get(slots[i]).getId() == id) {
+                System.arraycopy(values, i + 1, values, i, size - i - 1);
+                System.arraycopy(slots, i + 1, slots, i, size - i - 1);
+                size--;
+            }
+        }
+
+        BitSet range(Integer min, Integer max) {
+            long low = min != null ? min : Long.MIN_VALUE;
+            long high = max != null ? max : Long.MAX_VALUE;
+            BitSet result = new BitSet();
+            for (int i = firstAtLeast(values, size, low); i < size && values[i] <= high; i++) {
+                result.set(slots[i]);
+            }
+            return result;
+        }
+
+        /**
+         * Première position dont le couple (valeur, id) est supérieur ou égal à {@code (value, id)}.
+         */
+        int lowerBound(long value, long id, List<RentalResponse> docs) {
+            int low = 0;
+            int high = size;
+            while (low < high) {
+                int mid = (low + high) >>> 1;
+                if (compare(mid, value, id, docs) < 0) {
+                    low = mid + 1;
+                } else {
+                    high = mid;
+                }
+            }
+            return low;
+        }
+
+        /**
+         * Première position dont le couple (valeur, id) est strictement supérieur à {@code (value, id)}.
+         */
+        int upperBound(long value, long id, List<RentalResponse> docs) {
+            int low = 0;
+            int high = size;
+            while (low < high) {
+                int mid = (low + high) >>> 1;
+                if (compare(mid, value, id, docs) <= 0) {
+                    low = mid + 1;
+                } else {
+                    high = mid;
+                }
+            }
+            return low;
+        }
+
+        private int compare(int i, long value, long id, List<RentalResponse> docs) {
+            int c = Long.compare(values[i], value);
+            return c != 0 ? c : Long.compare(docs.get(slots[i]).getId(), id);
+        }
+
+        /**
+         * Première position de {@code sortedValues} dont la valeur est supérieure ou égale à {@code value}.
+         */
+        private static int firstAtLeast(long[] sortedValues, int size, long value) {
+            int low = 0;
+            int high = size;
+            while (low < high) {
+                int mid = (low + high) >>> 1;
+                if (sortedValues[mid] < value) {
+                    low = mid + 1;
+                } else {
+                    high = mid;
+                }
+            }
+            return low;
+        }
+    }
+}
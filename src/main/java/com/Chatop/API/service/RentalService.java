@@ -1,10 +1,17 @@
 package com.Chatop.API.service;
 
+import com.Chatop.API.dto.rental.RentalResponse;
 import com.Chatop.API.model.Rental;
 import com.Chatop.API.repository.RentalRepository;
 import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.time.Instant;
+import java.time.format.DateTimeParseException;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
 import java.util.Optional;
 
 @Service
@@ -12,16 +19,167 @@ import java.util.Optional;
 public class RentalService {
 
     private final RentalRepository rentalRepository;
+    private final RentalListCache rentalListCache;
+    private final RentalSearchIndex rentalSearchIndex;
 
+    @Transactional(readOnly = true)
     public Iterable<Rental> getRentals() {
         return rentalRepository.findAll();
     }
 
+    @Transactional(readOnly = true)
+    public List<RentalResponse> getRentalResponses() {
+        return rentalRepository.findAllResponses();
+    }
+
+    /**
+     * Renvoie une page de locations triée selon {@code sort}, en reprenant après le curseur {@code after}.
+     * Une ligne supplémentaire est lue pour savoir s'il existe une page suivante.
+     *
+     * @param after    curseur renvoyé par la page précédente (pour le tri par id, l'id lui-même), ou {@code null}
+     * @param limit    taille de page
+     * @param minPrice borne basse de prix (incluse), ou {@code null}
+     * @param maxPrice borne haute de prix (incluse), ou {@code null}
+     * @throws IllegalArgumentException si le curseur est invalide
+     */
+    @Transactional(readOnly = true)
+    public KeysetPage<RentalResponse> getRentalsPage(RentalSort sort, String after, int limit,
+                                             Integer minPrice, Integer maxPrice) {
+        int min = minPrice != null ? minPrice : Integer.MIN_VALUE;
+        int max = maxPrice != null ? maxPrice : Integer.MAX_VALUE;
+        Limit fetch = Limit.of(limit + 1);
+
+        List<RentalResponse> rows;
+        try {
+            rows = switch (sort) {
+                case ID -> rentalRepository.findPageById(
+                        after != null ? Long.parseLong(after) : 0L, min, max, fetch);
+                case PRICE -> {
+                    String[] c = after != null ? decodeCursor(sort, after) : null;
+                    yield rentalRepository.findPageByPrice(
+                            c != null ? Integer.parseInt(c[1]) : Integer.MIN_VALUE,
+                            c != null ? Long.parseLong(c[2]) : 0L,
+                            min, max, fetch);
+                }
+                case CREATED_AT -> {
+                    String[] c = after != null ? decodeCursor(sort, after) : null;
+                    yield rentalRepository.findPageByCreatedAt(
+                            c != null ? Instant.parse(c[1]) : Instant.EPOCH,
+                            c != null ? Long.parseLong(c[2]) : 0L,
+                            min, max, fetch);
+                }
+            };
+        } catch (NumberFormatException | DateTimeParseException e) {
+            throw new IllegalArgumentException("Invalid cursor");
+        }
+
+        if (rows.size() <= limit) {
+            return new KeysetPage<>(rows, null);
+        }
+        List<RentalResponse> page = rows.subList(0, limit);
+        return new KeysetPage<>(page, encodeCursor(sort, page.get(page.size() - 1)));
+    }
+
+    /**
+     * Location à modifier : lue sur le primaire (transaction en écriture), jamais sur une réplique en retard.
+     */
+    @Transactional
     public Optional<Rental> getRental(Long id) {
         return rentalRepository.findById(id);
     }
 
+    @Transactional(readOnly = true)
+    public Optional<RentalResponse> getRentalResponse(Long id) {
+        return rentalRepository.findResponseById(id);
+    }
+
+    /**
+     * Détail de plusieurs locations, dans l'ordre des {@code ids} (voir {@link BatchResult#load}).
+     */
+    @Transactional(readOnly = true)
+    public BatchResult<RentalResponse> getRentalResponses(List<Long> ids) {
+        return BatchResult.load(ids, rentalRepository::findResponsesByIdIn, RentalResponse::getId);
+    }
+
+    /**
+     * Version (date de dernière modification) d'une location, sans la charger.
+     */
+    @Transactional(readOnly = true)
+    public Optional<Instant> getRentalVersion(Long id) {
+        return rentalRepository.findUpdatedAtById(id);
+    }
+
     public Rental save(Rental rental) {
-        return rentalRepository.save(rental);
+        Rental saved = rentalRepository.save(rental);
+        rentalListCache.invalidate();
+        rentalSearchIndex.put(toListResponse(saved));
+        return saved;
+    }
+
+    /**
+     * Enregistre les modifications d'une location lue par {@link #getRental}, si personne ne l'a modifiée
+     * entre-temps : deux mises à jour concurrentes de la même version ne passent pas toutes les deux.
+     *
+     * @param expected date de dernière modification de la location au moment de sa lecture
+     * @return {@code false} si la location a été modifiée (ou supprimée) depuis
+     */
+    public boolean update(Rental rental, Instant expected) {
+        // Précision de la colonne (datetime(6)) : la valeur gardée en mémoire est celle relue ensuite
+        Instant now = Instant.now().truncatedTo(ChronoUnit.MICROS);
+        int updated = rentalRepository.updateIfUnmodified(rental.getId(), rental.getName(), rental.getSurface(),
+                rental.getPrice(), rental.getDescription(), rental.getPicture(), rental.getPictureThumbnail(),
+                rental.getPictureCard(), rental.getPictureFull(), expected, now);
+        if (updated == 0) {
+            return false;
+        }
+        rental.setUpdatedAt(now);
+        rentalListCache.invalidate();
+        rentalSearchIndex.put(toListResponse(rental));
+        return true;
+    }
+
+    /**
+     * Recherche dans l'index en mémoire (voir {@link RentalSearchIndex#search}).
+     */
+    public KeysetPage<RentalResponse> searchRentals(String text, Integer minPrice, Integer maxPrice,
+                                                   Integer minSurface, Integer maxSurface,
+                                                   String sort, String after, int limit) {
+        return rentalSearchIndex.search(text, minPrice, maxPrice, minSurface, maxSurface, sort, after, limit);
+    }
+
+    /**
+     * Enregistre les déclinaisons générées pour l'image {@code picture} de la location.
+     * Sans effet si l'image a été remplacée entre-temps.
+     */
+    public void updatePictureDerivatives(Long id, String picture, String thumbnail, String card, String full) {
+        if (rentalRepository.updatePictureDerivatives(id, picture, thumbnail, card, full, Instant.now()) > 0) {
+            rentalListCache.invalidate();
+            rentalRepository.findResponseById(id).ifPresent(rentalSearchIndex::put);
+        }
+    }
+
+    /**
+     * Même forme que {@link RentalRepository#SELECT_RESPONSE} : miniature si elle existe, sinon l'original.
+     */
+    private static RentalResponse toListResponse(Rental r) {
+        return new RentalResponse(r.getId(), r.getName(), r.getSurface(), r.getPrice(),
+                r.getPictureThumbnail() != null ? r.getPictureThumbnail() : r.getPicture(),
+                r.getDescription(), r.getOwner().getId(), r.getCreatedAt(), r.getUpdatedAt());
+    }
+
+    private static String[] decodeCursor(RentalSort sort, String after) {
+        String[] c = KeysetCursor.decode(after, 3);
+        if (!sort.name().equals(c[0])) {
+            throw new IllegalArgumentException("Invalid cursor");
+        }
+        return c;
+    }
+
+    private static String encodeCursor(RentalSort sort, RentalResponse last) {
+        return switch (sort) {
+            case ID -> String.valueOf(last.getId());
+            case PRICE -> KeysetCursor.encode(sort.name(), last.getPrice(), last.getId());
+            case CREATED_AT -> KeysetCursor.encode(sort.name(), last.getCreatedAt(), last.getId());
+        };
     }
 }
@@ -0,0 +1,29 @@
+package com.Chatop.API.service;
+
+/**
+ * Ordres de tri disponibles pour la liste paginée des locations.
+ * L'identifiant sert toujours de critère secondaire afin que l'ordre soit stable.
+ */
+public enum RentalSort {
+    ID("id"),
+    PRICE("price"),
+    CREATED_AT("created_at");
+
+    private final String param;
+
+    RentalSort(String param) {
+        this.param = param;
+    }
+
+    public static RentalSort fromParam(String value) {
+        if (value == null || value.isBlank()) {
+            return ID;
+        }
+        for (RentalSort s : values()) {
+            if (s.param.equalsIgnoreCase(value)) {
+                return s;
+            }
+        }
+        throw new IllegalArgumentException("Invalid sort: " + value);
+    }
+}
@@ -0,0 +1,78 @@
+package com.Chatop.API.service;
+
+import com.Chatop.API.repository.RentalRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Supprime périodiquement les fichiers du répertoire d'upload qui ne sont plus référencés par
+ * aucune location (image d'origine ou déclinaison), ainsi que les écritures abandonnées.
+ * <p>
+ * Un délai de grâce protège les fichiers récents : un upload est écrit avant que la location
+ * qui le référence soit enregistrée.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+@ConditionalOnProperty(value = "app.upload.sweep.enabled", havingValue = "true", matchIfMissing = true)
+public class UploadSweeper {
+
+    private final RentalRepository rentalRepository;
+    private final FileStorageService fileStorageService;
+
+    @Value("${app.upload.sweep.grace-period:PT1H}")
+    private Duration gracePeriod;
+
+    @Scheduled(fixedDelayString = "${app.upload.sweep.interval:PT1H}",
+            initialDelayString = "${app.upload.sweep.interval:PT1H}")
+    public void sweep() {
+        Path dir = fileStorageService.directory();
+        if (!Files.isDirectory(dir)) {
+            return;
+        }
+        // Horodatage pris avant de lire les références : un fichier écrit après n'est jamais candidat.
+        long cutoff = System.currentTimeMillis() - gracePeriod.toMillis();
+        Set<Path> referenced = referencedFiles();
+
+        int deleted = 0;
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(dir, Files::isRegularFile)) {
+            for (Path file : files) {
+                if (referenced.contains(file) || Files.getLastModifiedTime(file).toMillis() >= cutoff) {
+                    continue;
+                }
+                if (Files.deleteIfExists(file)) {
+                    deleted++;
+                }
+            }
+        } catch (IOException e) {
+            log.warn("Upload sweep failed", e);
+        }
+        if (deleted > 0) {
+            log.info("Upload sweep removed {} unreferenced file(s)", deleted);
+        }
+    }
+
+    private Set<Path> referencedFiles() {
+        Set<Path> referenced = new HashSet<>();
+        for (Object[] row : rentalRepository.findAllPictureUrls()) {
+            for (Object url : row) {
+                if (url != null) {
+                    fileStorageService.resolve((String) url).ifPresent(referenced::add);
+                }
+            }
+        }
+        return referenced;
+    }
+}
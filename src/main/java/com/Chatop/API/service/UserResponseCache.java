@@ -0,0 +1,58 @@
+package com.Chatop.API.service;
+
+import com.Chatop.API.dto.user.UserResponse;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+/**
+ * Petit cache à durée de vie limitée des profils utilisateurs, pour les endpoints qui ont besoin
+ * de données absentes du token (dates de création / mise à jour). Borné en taille : quand il est
+ * plein, les entrées expirées sont purgées et, à défaut, la valeur n'est pas mise en cache.
+ */
+@Component
+public class UserResponseCache {
+
+    private record Entry(UserResponse user, long expiresAtMillis) {
+    }
+
+    private final Map<Long, Entry> entries = new ConcurrentHashMap<>();
+
+    @Value("${app.user-cache.ttl-seconds:30}")
+    private long ttlSeconds;
+
+    @Value("${app.user-cache.max-size:10000}")
+    private int maxSize;
+
+    public Optional<UserResponse> get(Long id, Function<Long, Optional<UserResponse>> loader) {
+        long now = System.currentTimeMillis();
+        Entry e = entries.get(id);
+        if (e != null && now < e.expiresAtMillis()) {
+            return Optional.of(e.user());
+        }
+        Optional<UserResponse> loaded = loader.apply(id);
+        loaded.ifPresent(u -> put(id, u, now));
+        return loaded;
+    }
+
+    public void evict(Long id) {
+        entries.remove(id);
+    }
+
+    private void put(Long id, UserResponse user, long now) {
+        if (maxSize <= 0 || ttlSeconds <= 0) {
+            return;
+        }
+        if (entries.size() >= maxSize) {
+            entries.values().removeIf(e -> now >= e.expiresAtMillis());
+            if (entries.size() >= maxSize) {
+                return;
+            }
+        }
+        entries.put(id, new Entry(user, now + ttlSeconds * 1000));
+    }
+}
@@ -1,10 +1,15 @@
 package com.Chatop.API.service;
 
+import com.Chatop.API.dto.user.UserResponse;
 import com.Chatop.API.model.User;
 import com.Chatop.API.repository.UserRepository;
+import jakarta.persistence.EntityManager;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.time.Instant;
+import java.util.List;
 import java.util.Optional;
 
 @Service
@@ -12,24 +17,76 @@ import java.util.Optional;
 public class UserService {
 
     private final UserRepository userRepository;
+    private final UserResponseCache userResponseCache;
+    private final EntityManager entityManager;
+    private final KnownEmailFilter knownEmailFilter;
 
+    @Transactional(readOnly = true)
     public Optional<User> getUser(final Long id) {
         return userRepository.findById(id);
     }
 
+    @Transactional(readOnly = true)
     public Optional<User> getUserByEmail(final String email) {
         return userRepository.findByEmail(email);
     }
 
+    @Transactional(readOnly = true)
+    public Optional<UserResponse> getUserResponse(final Long id) {
+        return userRepository.findResponseById(id);
+    }
+
+    /**
+     * Plusieurs utilisateurs, dans l'ordre des {@code ids} (voir {@link BatchResult#load}).
+     */
+    @Transactional(readOnly = true)
+    public BatchResult<UserResponse> getUserResponses(List<Long> ids) {
+        return BatchResult.load(ids, userRepository::findResponsesByIdIn, UserResponse::getId);
+    }
+
+    /**
+     * Version (date de dernière modification) d'un utilisateur, sans le charger.
+     */
+    @Transactional(readOnly = true)
+    public Optional<Instant> getUserVersion(final Long id) {
+        return userRepository.findUpdatedAtById(id);
+    }
+
+    @Transactional(readOnly = true)
+    public Optional<UserResponse> getUserResponseByEmail(final String email) {
+        return userRepository.findResponseByEmail(email);
+    }
+
+    /**
+     * Comme {@link #getUserResponse(Long)}, mais servi depuis le cache à durée de vie limitée.
+     */
+    @Transactional(readOnly = true)
+    public Optional<UserResponse> getCachedUserResponse(final Long id) {
+        return userResponseCache.get(id, userRepository::findResponseById);
+    }
+
+    /**
+     * Référence (proxy non initialisé) vers un utilisateur dont l'id est connu, pour renseigner
+     * une association sans requête SELECT.
+     */
+    public User getUserReference(final Long id) {
+        return entityManager.getReference(User.class, id);
+    }
+
+    @Transactional(readOnly = true)
     public Iterable<User> getUsers() {
         return userRepository.findAll();
     }
 
     public User saveUser(User user) {
-        return userRepository.save(user);
+        User saved = userRepository.save(user);
+        userResponseCache.evict(saved.getId());
+        knownEmailFilter.add(saved.getEmail());
+        return saved;
     }
 
     public void deleteUser(final Long id) {
         userRepository.deleteById(id);
+        userResponseCache.evict(id);
     }
 }
@@ -0,0 +1,40 @@
+-- Schéma de la première version de l'API (users, rentals, messages), que créait alors ddl-auto=update.
+-- Les bases existantes sont marquées comme étant en version 1 sans rejouer ce script (spring.flyway.baseline-on-migrate) ;
+-- les noms de contraintes générés par Hibernate y diffèrent, aucune migration ne s'y réfère donc.
+
+create table users (
+    id         bigint       not null auto_increment,
+    name       varchar(100) not null,
+    email      varchar(180) not null,
+    password   varchar(255) not null,
+    created_at datetime(6)  not null,
+    updated_at datetime(6)  not null,
+    primary key (id),
+    constraint uk_users_email unique (email)
+) engine = InnoDB;
+
+create table rentals (
+    id          bigint        not null auto_increment,
+    name        varchar(180)  not null,
+    surface     integer       not null,
+    price       integer       not null,
+    picture     varchar(500)  not null,
+    description varchar(2000) not null,
+    owner_id    bigint        not null,
+    created_at  datetime(6)   not null,
+    updated_at  datetime(6)   not null,
+    primary key (id),
+    constraint fk_rentals_owner foreign key (owner_id) references users (id)
+) engine = InnoDB;
+
+create table messages (
+    id         bigint        not null auto_increment,
+    rental_id  bigint        not null,
+    user_id    bigint        not null,
+    message    varchar(2000) not null,
+    created_at datetime(6)   not null,
+    updated_at datetime(6)   not null,
+    primary key (id),
+    constraint fk_messages_rental foreign key (rental_id) references rentals (id),
+    constraint fk_messages_user foreign key (user_id) references users (id)
+) engine = InnoDB;
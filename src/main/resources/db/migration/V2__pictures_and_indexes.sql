@@ -0,0 +1,12 @@
+-- Images dérivées des locations (miniature, carte, plein écran), renseignées après traitement de l'image d'origine.
+alter table rentals add column picture_thumbnail varchar(500);
+alter table rentals add column picture_card varchar(500);
+alter table rentals add column picture_full varchar(500);
+
+-- Pagination par clé des locations (tri par prix / date de création, id en départage)
+create index idx_rentals_price_id on rentals (price, id);
+create index idx_rentals_created_at_id on rentals (created_at, id);
+
+-- Fil des messages d'une location, paginé par (created_at, id), et messages d'un utilisateur
+create index idx_messages_rental_created_at_id on messages (rental_id, created_at, id);
+create index idx_messages_user on messages (user_id);
@@ -0,0 +1,8 @@
+-- Propriétaire de la location recopié sur chaque message : la boîte de réception d'un propriétaire
+-- (toutes ses locations, paginée par (created_at, id)) se lit alors dans un seul index, sans jointure ni tri.
+-- Une location ne change jamais de propriétaire, la copie ne peut pas diverger.
+alter table messages add column rental_owner_id bigint;
+update messages set rental_owner_id = (select r.owner_id from rentals r where r.id = messages.rental_id);
+alter table messages modify rental_owner_id bigint not null;
+
+create index idx_messages_rental_owner_created_at_id on messages (rental_owner_id, created_at, id);
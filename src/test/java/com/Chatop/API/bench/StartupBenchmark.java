@@ -0,0 +1,147 @@
+package com.Chatop.API.bench;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+/**
+ * Temps jusqu'à la première requête servie, dans une JVM neuve à chaque mesure, pour trois modes de démarrage :
+ * application extraite seule, avec le traitement AOT de Spring, puis avec AOT et l'archive CDS.
+ * <p>
+ * Mesure l'artefact produit par {@code mvn package -Pfast-startup} (à construire d'abord), sur une base H2
+ * embarquée : le démarrage complet est mesuré, migrations Flyway et validation du schéma comprises. Lancer avec {@code mvn test -Pbenchmark -Dtest=StartupBenchmark}
+ * ({@code -Dstartup.runs=5} pour plus de mesures) ; le résultat est aussi écrit dans
+ * {@code target/startup-benchmark.json}.
+ */
+@Tag("benchmark")
+class StartupBenchmark {
+
+    private static final Path APP_DIR = Path.of("target", "fast-startup");
+    private static final int RUNS = Integer.getInteger("startup.runs", 3);
+    private static final Duration TIMEOUT = Duration.ofMinutes(2);
+    private static final String H2_JAR = jarOf(org.h2.Driver.class);
+
+    private record Result(String mode, double medianMillis, double minMillis) {
+        String toJson() {
+            return String.format(Locale.ROOT,
+                    "{\"mode\":\"%s\",\"median_ms\":%.0f,\"min_ms\":%.0f}", mode, medianMillis, minMillis);
+        }
+    }
+
+    @Test
+    void timeToFirstRequest() throws Exception {
+        Path jar;
+        try (var files = Files.list(APP_DIR)) {
+            jar = files.filter(p -> p.toString().endsWith(".jar")).findFirst().orElse(null);
+        } catch (IOException e) {
+            jar = null;
+        }
+        assumeTrue(jar != null, "Build the application first: mvn package -Pfast-startup");
+
+        List<Result> results = new ArrayList<>();
+        results.add(measure("jar", jar));
+        results.add(measure("aot", jar, "-Dspring.aot.enabled=true"));
+        if (Files.exists(APP_DIR.resolve("application.jsa"))) {
+            results.add(measure("aot+cds", jar, "-Dspring.aot.enabled=true", "-XX:SharedArchiveFile=application.jsa"));
+        }
+
+        String json = "[" + String.join(",", results.stream().map(Result::toJson).toList()) + "]";
+        System.out.println(json);
+        Files.writeString(Path.of("target", "startup-benchmark.json"), json);
+
+        assertThat(results).allSatisfy(r -> assertThat(r.medianMillis()).isPositive());
+    }
+
+    private static Result measure(String mode, Path jar, String... jvmOptions) throws Exception {
+        double[] millis = new double[RUNS];
+        for (int i = 0; i < RUNS; i++) {
+            millis[i] = startOnce(jar, jvmOptions);
+        }
+        Arrays.sort(millis);
+        return new Result(mode, millis[RUNS / 2], millis[0]);
+    }
+
+    /**
+     * Démarre l'application et interroge {@code /actuator/health} (port de gestion) jusqu'à la première réponse.
+     * Le pilote H2 est ajouté en fin de classpath : l'archive CDS reste utilisable, son classpath étant un préfixe.
+     */
+    private static double startOnce(Path jar, String... jvmOptions) throws Exception {
+        int port = freePort();
+        int managementPort = freePort();
+        List<String> command = new ArrayList<>();
+        command.add(Path.of(System.getProperty("java.home"), "bin", "java").toString());
+        command.addAll(Arrays.asList(jvmOptions));
+        command.addAll(List.of(
+                "-Dserver.port=" + port,
+                "-Dmanagement.server.port=" + managementPort,
+                "-Dspring.datasource.url=jdbc:h2:mem:startup;MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1",
+                "-Dspring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+                "-DP3_DB_USERNAME=sa",
+                "-DP3_DB_PASSWORD=",
+                "-DJWT_SECRET=c3RhcnR1cC1iZW5jaG1hcmstc3RhcnR1cC1iZW5jaG1hcmstc3RhcnR1cC1iZW5jaA==",
+                "-cp", jar.getFileName() + File.pathSeparator + H2_JAR,
+                "com.Chatop.API.ApiApplication"));
+
+        HttpClient client = HttpClient.newBuilder().connectTimeout(Duration.ofMillis(200)).build();
+        HttpRequest request = HttpRequest.newBuilder(URI.create("http://localhost:" + managementPort + "/actuator/health")).build();
+
+        long start = System.nanoTime();
+        Process process = new ProcessBuilder(command)
+                .directory(APP_DIR.toFile())
+                .redirectErrorStream(true)
+                .redirectOutput(ProcessBuilder.Redirect.DISCARD)
+                .start();
+        try {
+            while (System.nanoTime() - start < TIMEOUT.toNanos()) {
+                if (!process.isAlive()) {
+                    throw new IllegalStateException("Application exited with code " + process.exitValue());
+                }
+                try {
+                    client.send(request, HttpResponse.BodyHandlers.discarding());
+                    return (System.nanoTime() - start) / 1_000_000.0;
+                } catch (IOException e) {
+                    Thread.sleep(10);
+                }
+            }
+            throw new IllegalStateException("Application did not answer within " + TIMEOUT);
+        } finally {
+            process.destroy();
+            if (!process.waitFor(10, TimeUnit.SECONDS)) {
+                process.destroyForcibly();
+            }
+        }
+    }
+
+    private static String jarOf(Class<?> type) {
+        try {
+            return Path.of(type.getProtectionDomain().getCodeSource().getLocation().toURI()).toString();
+        } catch (URISyntaxException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static int freePort() throws IOException {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            return socket.getLocalPort();
+        }
+    }
+}
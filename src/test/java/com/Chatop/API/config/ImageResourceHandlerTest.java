@@ -0,0 +1,147 @@
+package com.Chatop.API.config;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.http.HttpHeaders;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.mock.web.MockServletContext;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.HexFormat;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ImageResourceHandlerTest {
+
+    private static final String DIGEST = HexFormat.of().formatHex(new byte[32]).replace('0', 'a');
+    private static final String NAME = DIGEST + ".jpg";
+
+    @TempDir
+    Path dir;
+
+    private ImageResourceHandler handler;
+    private byte[] content;
+    private Path file;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        content = new byte[100 * 1024];
+        new Random(42).nextBytes(content);
+        file = Files.write(dir.resolve(NAME), content);
+
+        handler = new ImageResourceHandler(dir);
+        handler.setServletContext(new MockServletContext());
+        handler.afterPropertiesSet();
+    }
+
+    @AfterEach
+    void tearDown() {
+        RequestContextHolder.resetRequestAttributes();
+    }
+
+    @Test
+    void servesFileWithImmutableCachingAndStrongEtag() throws Exception {
+        MockHttpServletResponse response = get(request(NAME));
+
+        assertThat(response.getStatus()).isEqualTo(200);
+        assertThat(response.getHeader(HttpHeaders.CACHE_CONTROL))
+                .contains("max-age=31536000", "public", "immutable");
+        assertThat(response.getHeader(HttpHeaders.ETAG)).isEqualTo("\"" + DIGEST + "\"");
+        assertThat(response.getDateHeader(HttpHeaders.LAST_MODIFIED)).isPositive();
+        assertThat(response.getContentAsByteArray()).isEqualTo(content);
+    }
+
+    @Test
+    void returnsNotModifiedForMatchingEtag() throws Exception {
+        MockHttpServletRequest request = request(NAME);
+        request.addHeader(HttpHeaders.IF_NONE_MATCH, "\"" + DIGEST + "\"");
+
+        MockHttpServletResponse response = get(request);
+
+        assertThat(response.getStatus()).isEqualTo(304);
+        assertThat(response.getContentAsByteArray()).isEmpty();
+    }
+
+    @Test
+    void returnsNotModifiedWhenUnchangedSinceDate() throws Exception {
+        MockHttpServletRequest request = request(NAME);
+        request.addHeader(HttpHeaders.IF_MODIFIED_SINCE, Files.getLastModifiedTime(file).toMillis() + 1000);
+
+        MockHttpServletResponse response = get(request);
+
+        assertThat(response.getStatus()).isEqualTo(304);
+        assertThat(response.getContentAsByteArray()).isEmpty();
+    }
+
+    @Test
+    void servesByteRanges() throws Exception {
+        MockHttpServletRequest request = request(NAME);
+        request.addHeader(HttpHeaders.RANGE, "bytes=10-19");
+
+        MockHttpServletResponse response = get(request);
+
+        assertThat(response.getStatus()).isEqualTo(206);
+        assertThat(response.getHeader(HttpHeaders.CONTENT_RANGE)).isEqualTo("bytes 10-19/" + content.length);
+        assertThat(response.getContentAsByteArray()).isEqualTo(Arrays.copyOfRange(content, 10, 20));
+    }
+
+    @Test
+    void delegatesBodyToSendfileWhenSupported() throws Exception {
+        MockHttpServletRequest request = request(NAME);
+        request.setAttribute(ImageResourceHandler.SENDFILE_SUPPORTED_ATTR, Boolean.TRUE);
+
+        MockHttpServletResponse response = get(request);
+
+        assertThat(response.getStatus()).isEqualTo(200);
+        assertThat(response.getContentLengthLong()).isEqualTo(content.length);
+        assertThat(response.getContentAsByteArray()).isEmpty();
+        assertThat(request.getAttribute(ImageResourceHandler.SENDFILE_FILENAME_ATTR))
+                .isEqualTo(file.toFile().getCanonicalPath());
+        assertThat(request.getAttribute(ImageResourceHandler.SENDFILE_START_ATTR)).isEqualTo(0L);
+        assertThat(request.getAttribute(ImageResourceHandler.SENDFILE_END_ATTR)).isEqualTo((long) content.length);
+    }
+
+    @Test
+    void copiesSmallFilesEvenWhenSendfileIsSupported() throws Exception {
+        byte[] small = {1, 2, 3};
+        Files.write(dir.resolve("small.png"), small);
+        MockHttpServletRequest request = request("small.png");
+        request.setAttribute(ImageResourceHandler.SENDFILE_SUPPORTED_ATTR, Boolean.TRUE);
+
+        MockHttpServletResponse response = get(request);
+
+        assertThat(response.getContentAsByteArray()).isEqualTo(small);
+        assertThat(request.getAttribute(ImageResourceHandler.SENDFILE_FILENAME_ATTR)).isNull();
+    }
+
+    @Test
+    void derivesEtagFromMetadataForNonContentAddressedFiles() throws Exception {
+        Files.write(dir.resolve("legacy.jpg"), content);
+
+        MockHttpServletResponse response = get(request("legacy.jpg"));
+
+        assertThat(response.getHeader(HttpHeaders.ETAG)).startsWith("\"").doesNotContain(DIGEST);
+    }
+
+    private MockHttpServletRequest request(String filename) {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/images/" + filename);
+        request.setAttribute(HandlerMapping.PATH_WITHIN_HANDLER_MAPPING_ATTRIBUTE, filename);
+        return request;
+    }
+
+    private MockHttpServletResponse get(MockHttpServletRequest request) throws Exception {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(request, response));
+        handler.handleRequest(request, response);
+        return response;
+    }
+}
@@ -0,0 +1,49 @@
+package com.Chatop.API.config;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.actuate.observability.AutoConfigureObservability;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.boot.test.web.server.LocalManagementPort;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.test.context.ActiveProfiles;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Actuator n'est servi que sur le port de gestion : le port public ne renvoie jamais les métriques.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@AutoConfigureObservability
+@ActiveProfiles("test")
+class ManagementPortTest {
+
+    @LocalServerPort
+    private int port;
+
+    @LocalManagementPort
+    private int managementPort;
+
+    @Autowired
+    private TestRestTemplate restTemplate;
+
+    @Test
+    void metricsAreServedOnManagementPortOnly() {
+        assertThat(managementPort).isNotEqualTo(port);
+
+        ResponseEntity<String> publicMetrics = restTemplate.getForEntity(
+                "http://127.0.0.1:" + port + "/actuator/prometheus", String.class);
+        assertThat(publicMetrics.getStatusCode()).isIn(HttpStatus.UNAUTHORIZED, HttpStatus.NOT_FOUND);
+
+        ResponseEntity<String> metrics = restTemplate.getForEntity(
+                "http://127.0.0.1:" + managementPort + "/actuator/prometheus", String.class);
+        assertThat(metrics.getStatusCode()).isEqualTo(HttpStatus.OK);
+        // Compteurs de l'application enregistrés dans le registre géré par Boot
+        // (http_server_queries : la requête précédente sur le port public)
+        assertThat(metrics.getBody()).contains("jvm_memory_used_bytes", "jwt_verify_seconds",
+                "auth_password_hash_seconds", "upload_store_seconds", "http_server_queries");
+    }
+}
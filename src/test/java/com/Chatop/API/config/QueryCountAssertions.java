@@ -0,0 +1,39 @@
+package com.Chatop.API.config;
+
+import org.junit.jupiter.api.function.Executable;
+import org.springframework.test.web.servlet.ResultMatcher;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Assertions sur le nombre de requêtes SQL, pour figer le budget de chaque endpoint.
+ * <pre>
+ * mockMvc.perform(get("/api/rentals/1")).andExpect(queryCount(1));
+ * assertQueryCount(queryCounter, 1, () -> rentalService.getRentalResponse(1L));
+ * </pre>
+ */
+public final class QueryCountAssertions {
+
+    private QueryCountAssertions() {
+    }
+
+    /**
+     * Vérifie le nombre de requêtes exécutées pendant la requête HTTP (mesuré par {@link QueryMetricsFilter}).
+     */
+    public static ResultMatcher queryCount(long expected) {
+        return result -> assertThat(result.getRequest().getAttribute(QueryMetricsFilter.QUERY_COUNT_ATTRIBUTE))
+                .as("SQL statements for %s %s", result.getRequest().getMethod(), result.getRequest().getRequestURI())
+                .isEqualTo(expected);
+    }
+
+    /**
+     * Exécute {@code action} sur le thread courant et vérifie le nombre de requêtes exécutées.
+     */
+    public static void assertQueryCount(QueryCounter queryCounter, long expected, Executable action) throws Throwable {
+        long before = queryCounter.current();
+        action.execute();
+        assertThat(queryCounter.current() - before)
+                .as("SQL statements")
+                .isEqualTo(expected);
+    }
+}
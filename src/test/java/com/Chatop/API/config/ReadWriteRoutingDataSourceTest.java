@@ -0,0 +1,191 @@
+package com.Chatop.API.config;
+
+import com.Chatop.API.security.AuthenticatedUser;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Aiguillage primaire / réplique sur deux bases H2 embarquées, chacune contenant une table {@code node}
+ * avec son propre nom.
+ */
+class ReadWriteRoutingDataSourceTest {
+
+    private static final Duration WINDOW = Duration.ofMillis(300);
+
+    private DataSource primary;
+    private DataSource replica;
+
+    @BeforeEach
+    void setUp() {
+        primary = database("primary");
+        replica = database("replica");
+    }
+
+    @AfterEach
+    void tearDown() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    void readOnlyTransactionsGoToReplica() {
+        Routing routing = new Routing(replica);
+
+        assertThat(routing.read()).isEqualTo("replica");
+        assertThat(routing.write()).isEqualTo("primary");
+        // Hors transaction : primaire
+        assertThat(routing.jdbc.queryForObject("select name from node", String.class)).isEqualTo("primary");
+    }
+
+    @Test
+    void userReadsOwnWritesFromPrimaryDuringWindow() throws Exception {
+        Routing routing = new Routing(replica);
+        authenticate(1L);
+        routing.write();
+
+        // Autre thread (autre requête), même utilisateur : primaire pendant la fenêtre
+        assertThat(routing.readOnOtherThread(1L)).isEqualTo("primary");
+        assertThat(routing.readOnOtherThread(2L)).isEqualTo("replica");
+
+        Thread.sleep(WINDOW.toMillis() + 50);
+        assertThat(routing.readOnOtherThread(1L)).isEqualTo("replica");
+    }
+
+    @Test
+    void threadReadsOwnWritesFromPrimaryDuringWindow() throws Exception {
+        Routing routing = new Routing(replica);
+        routing.write();
+
+        assertThat(routing.read()).isEqualTo("primary");
+        Thread.sleep(WINDOW.toMillis() + 50);
+        assertThat(routing.read()).isEqualTo("replica");
+    }
+
+    @Test
+    void threadFallbackDoesNotApplyToAuthenticatedUsers() {
+        Routing routing = new Routing(replica);
+        authenticate(1L);
+        routing.write();
+
+        // Même thread de requête, réutilisé par un autre utilisateur
+        authenticate(2L);
+        assertThat(routing.read()).isEqualTo("replica");
+        SecurityContextHolder.clearContext();
+        assertThat(routing.read()).isEqualTo("replica");
+    }
+
+    @Test
+    void writableTransactionWithoutChangesIsNotRecorded() {
+        Routing routing = new Routing(replica);
+        authenticate(1L);
+
+        // Lecture forcée sur le primaire, préparée puis simple
+        assertThat(routing.readInWritableTransaction(true)).isEqualTo("primary");
+        assertThat(routing.readInWritableTransaction(false)).isEqualTo("primary");
+
+        assertThat(routing.read()).isEqualTo("replica");
+    }
+
+    @Test
+    void rolledBackWriteIsNotRecorded() {
+        Routing routing = new Routing(replica);
+        routing.readWrite.execute(s -> {
+            routing.jdbc.update("update node set name = ?", "primary");
+            s.setRollbackOnly();
+            return null;
+        });
+
+        assertThat(routing.read()).isEqualTo("replica");
+    }
+
+    @Test
+    void recognisesDataModifyingStatements() {
+        assertThat(ReadWriteRoutingDataSource.modifiesData("insert into messages values (?)")).isTrue();
+        assertThat(ReadWriteRoutingDataSource.modifiesData("  /* comment */ UPDATE rentals set name = ?")).isTrue();
+        assertThat(ReadWriteRoutingDataSource.modifiesData("delete from users")).isTrue();
+        assertThat(ReadWriteRoutingDataSource.modifiesData("select * from users for update")).isFalse();
+        assertThat(ReadWriteRoutingDataSource.modifiesData("select u1_0.id from users u1_0 where u1_0.email=?")).isFalse();
+    }
+
+    @Test
+    void fallsBackToPrimaryWhenReplicaIsDown() {
+        DataSource down = new DriverManagerDataSource("jdbc:h2:mem:missing-" + UUID.randomUUID() + ";IFEXISTS=TRUE", "sa", "");
+        Routing routing = new Routing(down);
+
+        assertThat(routing.read()).isEqualTo("primary");
+        assertThat(routing.read()).isEqualTo("primary");
+    }
+
+    private static void authenticate(Long userId) {
+        AuthenticatedUser user = new AuthenticatedUser(userId, "user" + userId + "@chatop.test", null);
+        SecurityContextHolder.getContext().setAuthentication(
+                new UsernamePasswordAuthenticationToken(user, null, List.of()));
+    }
+
+    private static DataSource database(String name) {
+        DataSource dataSource = new DriverManagerDataSource(
+                "jdbc:h2:mem:" + name + "-" + UUID.randomUUID() + ";DB_CLOSE_DELAY=-1", "sa", "");
+        JdbcTemplate jdbc = new JdbcTemplate(dataSource);
+        jdbc.execute("create table node (name varchar(20))");
+        jdbc.update("insert into node (name) values (?)", name);
+        return dataSource;
+    }
+
+    private final class Routing {
+        private final JdbcTemplate jdbc;
+        private final TransactionTemplate readOnly;
+        private final TransactionTemplate readWrite;
+
+        Routing(DataSource replica) {
+            DataSource dataSource = new LazyConnectionDataSourceProxy(
+                    new ReadWriteRoutingDataSource(primary, replica, WINDOW, Duration.ofMinutes(1)));
+            DataSourceTransactionManager tm = new DataSourceTransactionManager(dataSource);
+            jdbc = new JdbcTemplate(dataSource);
+            readOnly = new TransactionTemplate(tm);
+            readOnly.setReadOnly(true);
+            readWrite = new TransactionTemplate(tm);
+        }
+
+        String read() {
+            return readOnly.execute(s -> jdbc.queryForObject("select name from node", String.class));
+        }
+
+        String write() {
+            return readWrite.execute(s -> {
+                jdbc.update("update node set name = name");
+                return jdbc.queryForObject("select name from node", String.class);
+            });
+        }
+
+        String readInWritableTransaction(boolean prepared) {
+            return readWrite.execute(s -> prepared
+                    ? jdbc.queryForObject("select name from node where name <> ?", String.class, "")
+                    : jdbc.queryForObject("select name from node", String.class));
+        }
+
+        String readOnOtherThread(Long userId) throws Exception {
+            String[] result = new String[1];
+            Thread t = new Thread(() -> {
+                authenticate(userId);
+                result[0] = read();
+            });
+            t.start();
+            t.join();
+            return result[0];
+        }
+    }
+}
@@ -0,0 +1,150 @@
+package com.Chatop.API.config;
+
+import com.Chatop.API.security.JwtService;
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.ApplicationContext;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.orm.jpa.support.OpenEntityManagerInViewInterceptor;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Application complète avec une réplique : deux bases H2 distinctes (sans réplication entre elles), de sorte
+ * qu'une écriture envoyée par erreur à la réplique n'apparaisse pas dans le primaire.
+ * Chaque flux lit d'abord (parfois en {@code readOnly}, donc sur la réplique) puis écrit : l'écriture doit
+ * partir sur le primaire.
+ */
+@SpringBootTest(properties = {
+        "spring.datasource.url=" + ReplicaRoutingIntegrationTest.PRIMARY_URL,
+        "app.datasource.replica.url=" + ReplicaRoutingIntegrationTest.REPLICA_URL,
+        // Lit la réplique dès la fin de l'écriture précédente
+        "app.datasource.replica.read-your-writes-window=PT0S",
+        // Les emails insérés directement en base ne sont pas dans le filtre
+        "app.auth.email-filter.enabled=false",
+        // Les hashs de coût 4 insérés ci-dessous sont recalculés à la connexion
+        "app.security.bcrypt.strength=5",
+        "app.messages.ingestion=sync"
+})
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class ReplicaRoutingIntegrationTest {
+
+    static final String PRIMARY_URL = "jdbc:h2:mem:routing-primary;MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1";
+    static final String REPLICA_URL = "jdbc:h2:mem:routing-replica;MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1";
+
+    private static final String EMAIL = "seeded@routing.test";
+    private static final String PASSWORD = "password";
+
+    static {
+        // La réplique reçoit le même schéma ; le primaire est migré au démarrage de l'application
+        Flyway.configure().dataSource(REPLICA_URL, "sa", "").load().migrate();
+    }
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private JwtService jwtService;
+
+    @Autowired
+    private ApplicationContext context;
+
+    private final JdbcTemplate primary = new JdbcTemplate(new DriverManagerDataSource(PRIMARY_URL, "sa", ""));
+    private final JdbcTemplate replica = new JdbcTemplate(new DriverManagerDataSource(REPLICA_URL, "sa", ""));
+
+    private long userId;
+    private long rentalId;
+
+    /**
+     * Même utilisateur (hash de coût 4) et même location dans les deux bases, comme après réplication.
+     */
+    @BeforeAll
+    void seed() {
+        String hash = new BCryptPasswordEncoder(4).encode(PASSWORD);
+        Timestamp now = Timestamp.from(Instant.now());
+        for (JdbcTemplate db : new JdbcTemplate[]{primary, replica}) {
+            db.update("insert into users (id, name, email, password, created_at, updated_at) values (1000, 'Seeded', ?, ?, ?, ?)",
+                    EMAIL, hash, now, now);
+            db.update("insert into rentals (id, name, surface, price, picture, description, owner_id, created_at, updated_at) "
+                    + "values (1000, 'Seeded', 10, 100, 'http://localhost/p.jpg', 'desc', 1000, ?, ?)", now, now);
+        }
+        userId = 1000;
+        rentalId = 1000;
+    }
+
+    @Test
+    void registerInsertsIntoPrimary() throws Exception {
+        mockMvc.perform(post("/api/auth/register")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"name\":\"New\",\"email\":\"new@routing.test\",\"password\":\"password\"}"))
+                .andExpect(status().isOk());
+
+        assertThat(countUsers(primary, "new@routing.test")).isEqualTo(1);
+        assertThat(countUsers(replica, "new@routing.test")).isZero();
+    }
+
+    @Test
+    void loginRehashesOnPrimary() throws Exception {
+        mockMvc.perform(post("/api/auth/login")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"email\":\"" + EMAIL + "\",\"password\":\"" + PASSWORD + "\"}"))
+                .andExpect(status().isOk());
+
+        assertThat(passwordOf(primary)).startsWith("$2a$05$");
+        assertThat(passwordOf(replica)).startsWith("$2a$04$");
+    }
+
+    @Test
+    void syncMessageInsertsIntoPrimary() throws Exception {
+        String token = jwtService.generateToken(EMAIL, Map.of("userId", userId, "name", "Seeded"));
+
+        mockMvc.perform(post("/api/messages")
+                        .header(HttpHeaders.AUTHORIZATION, "Bearer " + token)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"rental_id\":" + rentalId + ",\"user_id\":" + userId + ",\"message\":\"Hello\"}"))
+                .andExpect(status().isOk());
+
+        assertThat(countMessages(primary)).isEqualTo(1);
+        assertThat(countMessages(replica)).isZero();
+    }
+
+    /**
+     * Avec une session JPA ouverte sur toute la requête, la première connexion obtenue (réplique, si la
+     * première transaction est {@code readOnly}) servirait aussi les écritures suivantes.
+     */
+    @Test
+    void openInViewIsDisabled() {
+        assertThat(context.getBeanNamesForType(OpenEntityManagerInViewInterceptor.class)).isEmpty();
+    }
+
+    private static int countUsers(JdbcTemplate db, String email) {
+        return db.queryForObject("select count(*) from users where email = ?", Integer.class, email);
+    }
+
+    private static String passwordOf(JdbcTemplate db) {
+        return db.queryForObject("select password from users where email = ?", String.class, EMAIL);
+    }
+
+    private int countMessages(JdbcTemplate db) {
+        return db.queryForObject("select count(*) from messages where rental_id = ?", Integer.class, rentalId);
+    }
+}
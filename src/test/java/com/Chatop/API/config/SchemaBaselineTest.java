@@ -0,0 +1,50 @@
+package com.Chatop.API.config;
+
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.jdbc.datasource.init.ResourceDatabasePopulator;
+
+import javax.sql.DataSource;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Base créée avant Flyway (schéma de la première version, sans historique de migrations) : marquée en
+ * version 1 au premier démarrage, elle reçoit ensuite les migrations suivantes.
+ */
+class SchemaBaselineTest {
+
+    @Test
+    void existingDatabaseIsBaselinedThenMigrated() {
+        DataSource dataSource = new DriverManagerDataSource(
+                "jdbc:h2:mem:baseline-" + UUID.randomUUID() + ";MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1", "sa", "");
+        new ResourceDatabasePopulator(new ClassPathResource("db/migration/V1__init_schema.sql")).execute(dataSource);
+        JdbcTemplate jdbc = new JdbcTemplate(dataSource);
+        jdbc.update("insert into users (id, name, email, password, created_at, updated_at) values (1, 'a', 'a@test', 'x', now(), now())");
+        jdbc.update("insert into rentals (id, name, surface, price, picture, description, owner_id, created_at, updated_at) "
+                + "values (1, 'r', 10, 100, '/images/r.jpg', 'd', 1, now(), now())");
+        jdbc.update("insert into messages (rental_id, user_id, message, created_at, updated_at) values (1, 1, 'm', now(), now())");
+
+        Flyway.configure()
+                .dataSource(dataSource)
+                .baselineOnMigrate(true)
+                .baselineVersion("1")
+                .load()
+                .migrate();
+
+        assertThat(jdbc.queryForList("select version from flyway_schema_history where version is not null order by installed_rank", String.class))
+                .containsExactly("1", "2", "3");
+        assertThat(jdbc.queryForObject("select count(*) from information_schema.columns "
+                + "where table_name = 'rentals' and column_name like 'picture_%'", Integer.class)).isEqualTo(3);
+        assertThat(jdbc.queryForObject("select count(*) from information_schema.indexes "
+                + "where index_name in ('idx_rentals_price_id', 'idx_rentals_created_at_id', "
+                + "'idx_messages_rental_created_at_id', 'idx_messages_user')", Integer.class)).isEqualTo(4);
+        assertThat(jdbc.queryForObject("select count(*) from users", Integer.class)).isEqualTo(1);
+        // Messages existants rattachés au propriétaire de leur location
+        assertThat(jdbc.queryForObject("select rental_owner_id from messages", Long.class)).isEqualTo(1L);
+    }
+}
@@ -0,0 +1,185 @@
+package com.Chatop.API.controller;
+
+import com.Chatop.API.model.Rental;
+import com.Chatop.API.model.User;
+import com.Chatop.API.repository.RentalRepository;
+import com.Chatop.API.repository.UserRepository;
+import com.Chatop.API.security.JwtService;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Pagination par curseur des messages : ordre (created_at, id) décroissant, y compris entre messages
+ * de même date, sans saut ni doublon d'une page à l'autre.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class MessageControllerTest {
+
+    private static final Instant T0 = Instant.parse("2024-03-01T10:00:00Z");
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private JdbcTemplate jdbc;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private RentalRepository rentalRepository;
+
+    @Autowired
+    private JwtService jwtService;
+
+    private User owner;
+    private User tenant;
+    private Rental first;
+    private Rental second;
+    private Rental otherOwners;
+
+    @BeforeAll
+    void seed() {
+        owner = user("owner");
+        tenant = user("tenant");
+        first = rental(owner);
+        second = rental(owner);
+        otherOwners = rental(tenant);
+        // Plusieurs messages à la même date, répartis sur les deux locations du propriétaire
+        for (int i = 0; i < 9; i++) {
+            message(i % 2 == 0 ? first : second, T0.plusSeconds(i / 3));
+        }
+        message(otherOwners, T0.plusSeconds(1));
+        message(otherOwners, T0.plusSeconds(5));
+    }
+
+    @Test
+    void inboxPagesFollowCreatedAtThenIdDescending() throws Exception {
+        List<Long> expected = jdbc.queryForList("select m.id from messages m join rentals r on r.id = m.rental_id "
+                + "where r.owner_id = ? order by m.created_at desc, m.id desc", Long.class, owner.getId());
+        assertThat(expected).hasSize(9);
+
+        for (int limit : new int[]{1, 2, 4, 9, 20}) {
+            assertThat(pageThrough("/api/messages/inbox", limit)).as("limit %d", limit).isEqualTo(expected);
+        }
+    }
+
+    @Test
+    void rentalPagesFollowCreatedAtThenIdDescending() throws Exception {
+        List<Long> expected = jdbc.queryForList("select id from messages where rental_id = ? "
+                + "order by created_at desc, id desc", Long.class, first.getId());
+
+        assertThat(pageThrough("/api/rentals/" + first.getId() + "/messages", 2)).isEqualTo(expected);
+    }
+
+    @Test
+    void newerMessagesDoNotShiftLaterPages() throws Exception {
+        Rental rental = rental(owner);
+        for (int i = 0; i < 4; i++) {
+            message(rental, T0);
+        }
+        String path = "/api/rentals/" + rental.getId() + "/messages";
+        List<Long> expected = jdbc.queryForList("select id from messages where rental_id = ? order by id desc",
+                Long.class, rental.getId());
+
+        JsonNode page = fetch(path, 2, null);
+        message(rental, T0.plusSeconds(60));
+        JsonNode next = fetch(path, 2, page.get("next_cursor").asText());
+
+        List<Long> seen = new ArrayList<>(ids(page));
+        seen.addAll(ids(next));
+        assertThat(seen).isEqualTo(expected);
+        assertThat(next.get("next_cursor").isNull()).isTrue();
+    }
+
+    @Test
+    void invalidCursorIsRejectedWith400() throws Exception {
+        mockMvc.perform(get("/api/messages/inbox").param("after", "not-a-cursor")
+                        .header(HttpHeaders.AUTHORIZATION, "Bearer " + token(owner)))
+                .andExpect(status().isBadRequest());
+    }
+
+    private List<Long> pageThrough(String path, int limit) throws Exception {
+        List<Long> result = new ArrayList<>();
+        String after = null;
+        do {
+            JsonNode page = fetch(path, limit, after);
+            assertThat(page.get("messages").size()).isLessThanOrEqualTo(limit);
+            result.addAll(ids(page));
+            after = page.get("next_cursor").isNull() ? null : page.get("next_cursor").asText();
+        } while (after != null);
+        return result;
+    }
+
+    private JsonNode fetch(String path, int limit, String after) throws Exception {
+        var request = get(path).param("limit", String.valueOf(limit))
+                .header(HttpHeaders.AUTHORIZATION, "Bearer " + token(owner));
+        if (after != null) {
+            request.param("after", after);
+        }
+        String body = mockMvc.perform(request).andExpect(status().isOk()).andReturn().getResponse().getContentAsString();
+        return objectMapper.readTree(body);
+    }
+
+    private static List<Long> ids(JsonNode page) {
+        List<Long> ids = new ArrayList<>();
+        page.get("messages").forEach(m -> ids.add(m.get("id").asLong()));
+        return ids;
+    }
+
+    private User user(String name) {
+        User u = new User();
+        u.setName(name);
+        u.setEmail(name + "-" + UUID.randomUUID() + "@chatop.test");
+        u.setPassword("x");
+        return userRepository.save(u);
+    }
+
+    private Rental rental(User rentalOwner) {
+        Rental r = new Rental();
+        r.setName("Rental");
+        r.setSurface(20);
+        r.setPrice(100);
+        r.setDescription("Description");
+        r.setPicture("http://localhost:3001/images/r.jpg");
+        r.setOwner(rentalOwner);
+        return rentalRepository.save(r);
+    }
+
+    private void message(Rental rental, Instant createdAt) {
+        Timestamp t = Timestamp.from(createdAt);
+        jdbc.update("insert into messages (rental_id, rental_owner_id, user_id, message, created_at, updated_at) "
+                + "values (?, ?, ?, 'Bonjour', ?, ?)", rental.getId(), rental.getOwner().getId(), tenant.getId(), t, t);
+    }
+
+    private String token(User u) {
+        return jwtService.generateToken(u.getEmail(), Map.of("userId", u.getId(), "name", u.getName()));
+    }
+}
@@ -0,0 +1,369 @@
+package com.Chatop.API.controller;
+
+import com.Chatop.API.config.QueryCounter;
+import com.Chatop.API.model.Message;
+import com.Chatop.API.model.Rental;
+import com.Chatop.API.model.User;
+import com.Chatop.API.repository.MessageRepository;
+import com.Chatop.API.repository.RentalRepository;
+import com.Chatop.API.repository.UserRepository;
+import com.Chatop.API.security.JwtService;
+import com.Chatop.API.service.BatchResult;
+import com.Chatop.API.service.KnownEmailFilter;
+import com.Chatop.API.service.RentalListCache;
+import com.Chatop.API.service.RentalService;
+import com.Chatop.API.service.UserResponseCache;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.stream.Collectors;
+import java.util.stream.LongStream;
+
+import static com.Chatop.API.config.QueryCountAssertions.assertQueryCount;
+import static com.Chatop.API.config.QueryCountAssertions.queryCount;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.nullValue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Budget de requêtes SQL de chaque endpoint. Un écart (en plus ou en moins) fait échouer le test :
+ * une requête supplémentaire signale souvent un N+1, une requête en moins doit être répercutée ici.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class QueryBudgetTest {
+
+    private static final String BOUNDARY = "----query-budget";
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private QueryCounter queryCounter;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private RentalRepository rentalRepository;
+
+    @Autowired
+    private MessageRepository messageRepository;
+
+    @Autowired
+    private RentalService rentalService;
+
+    @Autowired
+    private RentalListCache rentalListCache;
+
+    @Autowired
+    private UserResponseCache userResponseCache;
+
+    @Autowired
+    private KnownEmailFilter knownEmailFilter;
+
+    @Autowired
+    private PasswordEncoder passwordEncoder;
+
+    @Autowired
+    private JwtService jwtService;
+
+    private User owner;
+    private User tenant;
+    private Rental rental;
+    private final List<Long> rentalIds = new ArrayList<>();
+    private String ownerToken;
+
+    @BeforeAll
+    void seed() {
+        owner = user("owner");
+        tenant = user("tenant");
+        for (int i = 0; i < 5; i++) {
+            Rental r = new Rental();
+            r.setName("Rental " + i);
+            r.setSurface(20 + i);
+            r.setPrice(100 + i);
+            r.setDescription("Description " + i);
+            r.setPicture("http://localhost:3001/images/" + i + ".jpg");
+            r.setOwner(i % 2 == 0 ? owner : tenant);
+            Rental saved = rentalRepository.save(r);
+            rentalIds.add(saved.getId());
+            if (rental == null) {
+                rental = saved;
+            }
+        }
+        for (int i = 0; i < 5; i++) {
+            Message m = new Message();
+            m.setRental(rental);
+            m.setUser(tenant);
+            m.setMessage("Message " + i);
+            messageRepository.save(m);
+        }
+        knownEmailFilter.rebuild();
+        ownerToken = token(owner);
+    }
+
+    @Test
+    void register() throws Exception {
+        String body = "{\"email\":\"" + UUID.randomUUID() + "@chatop.test\",\"name\":\"New\",\"password\":\"password\"}";
+        mockMvc.perform(post("/api/auth/register").contentType(MediaType.APPLICATION_JSON).content(body))
+                .andExpect(status().isOk())
+                .andExpect(queryCount(1));
+    }
+
+    @Test
+    void login() throws Exception {
+        String body = "{\"email\":\"" + owner.getEmail() + "\",\"password\":\"password\"}";
+        mockMvc.perform(post("/api/auth/login").contentType(MediaType.APPLICATION_JSON).content(body))
+                .andExpect(status().isOk())
+                .andExpect(queryCount(1));
+    }
+
+    @Test
+    void me() throws Exception {
+        userResponseCache.evict(owner.getId());
+        mockMvc.perform(authenticated(get("/api/auth/me")))
+                .andExpect(status().isOk())
+                .andExpect(queryCount(1));
+    }
+
+    @Test
+    void user() throws Exception {
+        userResponseCache.evict(tenant.getId());
+        mockMvc.perform(authenticated(get("/api/user/" + tenant.getId())))
+                .andExpect(status().isOk())
+                .andExpect(queryCount(1));
+    }
+
+    @Test
+    void userNotModified() throws Exception {
+        String etag = mockMvc.perform(authenticated(get("/api/user/" + tenant.getId())))
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+        mockMvc.perform(authenticated(get("/api/user/" + tenant.getId())).header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isNotModified())
+                .andExpect(queryCount(1));
+    }
+
+    @Test
+    void rentals() throws Exception {
+        rentalListCache.invalidate();
+        mockMvc.perform(authenticated(get("/api/rentals")))
+                .andExpect(status().isOk())
+                .andExpect(queryCount(1));
+        // Servie depuis le cache
+        mockMvc.perform(authenticated(get("/api/rentals")))
+                .andExpect(status().isOk())
+                .andExpect(queryCount(0));
+    }
+
+    @Test
+    void rentalsPage() throws Exception {
+        mockMvc.perform(authenticated(get("/api/rentals").param("limit", "2").param("sort", "price")))
+                .andExpect(status().isOk())
+                .andExpect(queryCount(1));
+    }
+
+    @Test
+    void rentalsBatch() throws Exception {
+        long unknown = Long.MAX_VALUE;
+        String ids = rentalIds.get(2) + "," + unknown + "," + rentalIds.get(0) + "," + rentalIds.get(2);
+        mockMvc.perform(authenticated(get("/api/rentals").param("ids", ids)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.rentals.length()").value(4))
+                .andExpect(jsonPath("$.rentals[0].id").value(rentalIds.get(2)))
+                .andExpect(jsonPath("$.rentals[1]").value(nullValue()))
+                .andExpect(jsonPath("$.rentals[2].id").value(rentalIds.get(0)))
+                .andExpect(jsonPath("$.rentals[3].id").value(rentalIds.get(2)))
+                .andExpect(jsonPath("$.not_found").value(contains(unknown)))
+                .andExpect(queryCount(1));
+    }
+
+    @Test
+    void rentalsBatchChunked() throws Exception {
+        // Une requête IN par tranche de BatchResult.CHUNK_SIZE ids distincts
+        String ids = LongStream.rangeClosed(1, BatchResult.CHUNK_SIZE + 1)
+                .mapToObj(Long::toString)
+                .collect(Collectors.joining(","));
+        mockMvc.perform(authenticated(get("/api/rentals").param("ids", ids)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.rentals.length()").value(BatchResult.CHUNK_SIZE + 1))
+                .andExpect(queryCount(2));
+    }
+
+    @Test
+    void usersBatch() throws Exception {
+        mockMvc.perform(authenticated(get("/api/users").param("ids", tenant.getId() + "," + owner.getId())))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.users[0].id").value(tenant.getId()))
+                .andExpect(jsonPath("$.users[1].id").value(owner.getId()))
+                .andExpect(jsonPath("$.not_found").isEmpty())
+                .andExpect(queryCount(1));
+    }
+
+    @Test
+    void search() throws Exception {
+        mockMvc.perform(authenticated(get("/api/rentals/search").param("q", "rental")))
+                .andExpect(status().isOk())
+                .andExpect(queryCount(0));
+    }
+
+    @Test
+    void rental() throws Exception {
+        mockMvc.perform(authenticated(get("/api/rentals/" + rental.getId())))
+                .andExpect(status().isOk())
+                .andExpect(queryCount(1));
+    }
+
+    @Test
+    void rentalNotModified() throws Exception {
+        String etag = mockMvc.perform(authenticated(get("/api/rentals/" + rental.getId())))
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+        // Seule la date de modification est relue
+        mockMvc.perform(authenticated(get("/api/rentals/" + rental.getId())).header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isNotModified())
+                .andExpect(queryCount(1));
+        mockMvc.perform(authenticated(get("/api/rentals/" + rental.getId())).header(HttpHeaders.IF_NONE_MATCH, "\"stale\""))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, etag))
+                .andExpect(queryCount(2));
+    }
+
+    @Test
+    void concurrentUpdateRental() throws Exception {
+        // Deux mises à jour lisent la même version ; la première écrit, la seconde est refusée
+        Rental first = rentalService.getRental(rental.getId()).orElseThrow();
+        Rental second = rentalService.getRental(rental.getId()).orElseThrow();
+        first.setName("First");
+        second.setName("Second");
+
+        assertThat(rentalService.update(first, first.getUpdatedAt())).isTrue();
+        assertThat(rentalService.update(second, second.getUpdatedAt())).isFalse();
+        assertThat(rentalService.getRentalResponse(rental.getId()).orElseThrow().getName()).isEqualTo("First");
+
+        // La version écrite est celle relue : une mise à jour qui en part est acceptée
+        Instant version = rentalService.getRentalVersion(rental.getId()).orElseThrow();
+        assertThat(version).isEqualTo(first.getUpdatedAt());
+        assertThat(rentalService.update(first, version)).isTrue();
+    }
+
+    @Test
+    void createRental() throws Exception {
+        mockMvc.perform(authenticated(multipart(post("/api/rentals"), true)))
+                .andExpect(status().isOk())
+                .andExpect(queryCount(1));
+    }
+
+    @Test
+    void updateRental() throws Exception {
+        // Lecture de la location (contrôle du propriétaire) puis mise à jour conditionnelle
+        mockMvc.perform(authenticated(multipart(put("/api/rentals/" + rental.getId()), false)))
+                .andExpect(status().isOk())
+                .andExpect(queryCount(2));
+    }
+
+    @Test
+    void staleUpdateRental() throws Exception {
+        // Refusée après la lecture de la location, sans lire le formulaire ni écrire
+        mockMvc.perform(authenticated(multipart(put("/api/rentals/" + rental.getId()), false))
+                        .header(HttpHeaders.IF_MATCH, "\"stale\""))
+                .andExpect(status().isPreconditionFailed())
+                .andExpect(queryCount(1));
+    }
+
+    @Test
+    void sendMessage() throws Exception {
+        String body = "{\"rental_id\":" + rental.getId() + ",\"user_id\":" + owner.getId() + ",\"message\":\"Hello\"}";
+        // Propriétaire de la location puis insertion
+        mockMvc.perform(authenticated(post("/api/messages")).contentType(MediaType.APPLICATION_JSON).content(body))
+                .andExpect(status().isOk())
+                .andExpect(queryCount(2));
+    }
+
+    @Test
+    void rentalMessages() throws Exception {
+        // Propriétaire de la location puis page de messages
+        mockMvc.perform(authenticated(get("/api/rentals/" + rental.getId() + "/messages")))
+                .andExpect(status().isOk())
+                .andExpect(queryCount(2));
+    }
+
+    @Test
+    void inbox() throws Exception {
+        mockMvc.perform(authenticated(get("/api/messages/inbox")))
+                .andExpect(status().isOk())
+                .andExpect(queryCount(1));
+    }
+
+    @Test
+    void stream() throws Exception {
+        mockMvc.perform(authenticated(get("/api/messages/stream")))
+                .andExpect(request().asyncStarted())
+                .andExpect(queryCount(0));
+    }
+
+    @Test
+    void rentalDetailService() throws Throwable {
+        assertQueryCount(queryCounter, 1, () -> rentalService.getRentalResponse(rental.getId()));
+    }
+
+    private User user(String name) {
+        User u = new User();
+        u.setName(name);
+        u.setEmail(name + "-" + UUID.randomUUID() + "@chatop.test");
+        u.setPassword(passwordEncoder.encode("password"));
+        return userRepository.save(u);
+    }
+
+    private String token(User u) {
+        return jwtService.generateToken(u.getEmail(), Map.of("userId", u.getId(), "name", u.getName()));
+    }
+
+    private MockHttpServletRequestBuilder authenticated(MockHttpServletRequestBuilder builder) {
+        return builder.header(HttpHeaders.AUTHORIZATION, "Bearer " + ownerToken);
+    }
+
+    /**
+     * Formulaire multipart brut : le contrôleur lit le flux de la requête, sans passer par MultipartResolver.
+     */
+    private static MockHttpServletRequestBuilder multipart(MockHttpServletRequestBuilder builder, boolean picture) {
+        StringBuilder body = new StringBuilder();
+        Map.of("name", "Budget", "surface", "42", "price", "420", "description", "Query budget")
+                .forEach((name, value) -> body.append("--").append(BOUNDARY).append("\r\n")
+                        .append("Content-Disposition: form-data; name=\"").append(name).append("\"\r\n\r\n")
+                        .append(value).append("\r\n"));
+        if (picture) {
+            body.append("--").append(BOUNDARY).append("\r\n")
+                    .append("Content-Disposition: form-data; name=\"picture\"; filename=\"budget.txt\"\r\n")
+                    .append("Content-Type: application/octet-stream\r\n\r\n")
+                    .append(UUID.randomUUID()).append("\r\n");
+        }
+        body.append("--").append(BOUNDARY).append("--\r\n");
+        return builder.contentType("multipart/form-data; boundary=" + BOUNDARY)
+                .content(body.toString().getBytes(StandardCharsets.UTF_8));
+    }
+}
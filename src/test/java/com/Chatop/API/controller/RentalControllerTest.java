@@ -0,0 +1,154 @@
+package com.Chatop.API.controller;
+
+import com.Chatop.API.model.Rental;
+import com.Chatop.API.model.User;
+import com.Chatop.API.repository.RentalRepository;
+import com.Chatop.API.repository.UserRepository;
+import com.Chatop.API.security.JwtService;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Liste paginée par curseur ({@code GET /api/rentals?limit=...}) : départage par id entre locations de même
+ * prix ou de même date de création, sans saut ni doublon d'une page à l'autre.
+ * Les locations de ce test ont une plage de prix qui leur est propre, filtrée par {@code minPrice} / {@code maxPrice}.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class RentalControllerTest {
+
+    private static final int MIN_PRICE = 770_000;
+    private static final int MAX_PRICE = 770_002;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private JdbcTemplate jdbc;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private RentalRepository rentalRepository;
+
+    @Autowired
+    private JwtService jwtService;
+
+    private String token;
+
+    @BeforeAll
+    void seed() {
+        User owner = new User();
+        owner.setName("owner");
+        owner.setEmail("owner-" + UUID.randomUUID() + "@chatop.test");
+        owner.setPassword("x");
+        owner = userRepository.save(owner);
+        token = jwtService.generateToken(owner.getEmail(), Map.of("userId", owner.getId(), "name", owner.getName()));
+
+        // Trois prix et trois dates, chacun partagé par plusieurs locations
+        Instant t0 = Instant.parse("2024-05-01T08:00:00Z");
+        for (int i = 0; i < 10; i++) {
+            Rental r = new Rental();
+            r.setName("Paged " + i);
+            r.setSurface(30);
+            r.setPrice(MIN_PRICE + i % 3);
+            r.setDescription("Description");
+            r.setPicture("http://localhost:3001/images/paged.jpg");
+            r.setOwner(owner);
+            Rental saved = rentalRepository.save(r);
+            jdbc.update("update rentals set created_at = ? where id = ?", Timestamp.from(t0.plusSeconds(i % 4)), saved.getId());
+        }
+    }
+
+    @Test
+    void priceTiesAreBrokenById() throws Exception {
+        List<Long> expected = jdbc.queryForList("select id from rentals where price between ? and ? order by price, id",
+                Long.class, MIN_PRICE, MAX_PRICE);
+        assertThat(expected).hasSize(10);
+
+        for (int limit : new int[]{1, 3, 4, 10}) {
+            assertThat(pageThrough("price", limit)).as("limit %d", limit).isEqualTo(expected);
+        }
+    }
+
+    @Test
+    void createdAtTiesAreBrokenById() throws Exception {
+        List<Long> expected = jdbc.queryForList("select id from rentals where price between ? and ? order by created_at, id",
+                Long.class, MIN_PRICE, MAX_PRICE);
+
+        for (int limit : new int[]{1, 2, 3, 10}) {
+            assertThat(pageThrough("created_at", limit)).as("limit %d", limit).isEqualTo(expected);
+        }
+    }
+
+    @Test
+    void invalidCursorIsRejectedWith400() throws Exception {
+        String priceCursor = fetch("price", 1, null).get("next_cursor").asText();
+
+        for (String[] params : new String[][]{
+                {"price", "not-a-cursor"},
+                {"created_at", priceCursor},
+                {"id", "abc"}}) {
+            mockMvc.perform(authenticated(get("/api/rentals").param("limit", "2")
+                            .param("sort", params[0]).param("after", params[1])))
+                    .andExpect(status().isBadRequest());
+        }
+    }
+
+    private List<Long> pageThrough(String sort, int limit) throws Exception {
+        List<Long> result = new ArrayList<>();
+        String after = null;
+        do {
+            JsonNode page = fetch(sort, limit, after);
+            page.get("rentals").forEach(r -> result.add(r.get("id").asLong()));
+            after = page.get("next_cursor").isNull() ? null : page.get("next_cursor").asText();
+        } while (after != null);
+        return result;
+    }
+
+    private JsonNode fetch(String sort, int limit, String after) throws Exception {
+        MockHttpServletRequestBuilder request = get("/api/rentals")
+                .param("limit", String.valueOf(limit))
+                .param("sort", sort)
+                .param("minPrice", String.valueOf(MIN_PRICE))
+                .param("maxPrice", String.valueOf(MAX_PRICE));
+        if (after != null) {
+            request.param("after", after);
+        }
+        String body = mockMvc.perform(authenticated(request)).andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        return objectMapper.readTree(body);
+    }
+
+    private MockHttpServletRequestBuilder authenticated(MockHttpServletRequestBuilder builder) {
+        return builder.header(HttpHeaders.AUTHORIZATION, "Bearer " + token);
+    }
+}
@@ -0,0 +1,141 @@
+package com.Chatop.API.controller;
+
+import com.Chatop.API.model.Rental;
+import com.Chatop.API.model.User;
+import com.Chatop.API.repository.RentalRepository;
+import com.Chatop.API.repository.UserRepository;
+import com.Chatop.API.security.JwtService;
+import com.Chatop.API.service.RentalListCache;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+
+import java.io.ByteArrayInputStream;
+import java.util.Map;
+import java.util.UUID;
+import java.util.zip.GZIPInputStream;
+
+import static com.Chatop.API.config.QueryCountAssertions.queryCount;
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * {@code GET /api/rentals} en mode streaming : même corps, octet pour octet, que la réponse mise en cache,
+ * lu en une seule requête SQL et sans cache.
+ */
+@SpringBootTest(properties = "app.rentals.list.mode=streaming")
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class RentalListStreamingTest {
+
+    // Plus de lignes que la taille des lots lus (RentalRepository.STREAM_FETCH_SIZE)
+    private static final int RENTALS = 1200;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private RentalRepository rentalRepository;
+
+    @Autowired
+    private RentalListCache rentalListCache;
+
+    @Autowired
+    private JwtService jwtService;
+
+    private String token;
+
+    @BeforeAll
+    void seed() {
+        User owner = new User();
+        owner.setName("streaming");
+        owner.setEmail("streaming-" + UUID.randomUUID() + "@chatop.test");
+        owner.setPassword("password");
+        owner = userRepository.save(owner);
+        for (int i = 0; i < RENTALS; i++) {
+            Rental r = new Rental();
+            r.setName("Location « " + i + " »");
+            r.setSurface(20 + i);
+            r.setPrice(100 + i);
+            r.setDescription("Description \"" + i + "\"\n");
+            r.setPicture("http://localhost:3001/images/" + i + ".jpg");
+            r.setOwner(owner);
+            rentalRepository.save(r);
+        }
+        rentalListCache.invalidate();
+        token = jwtService.generateToken(owner.getEmail(), Map.of("userId", owner.getId(), "name", owner.getName()));
+    }
+
+    @Test
+    void streamsSameBodyAsCachedList() throws Exception {
+        byte[] expected = rentalListCache.get().identity();
+
+        mockMvc.perform(authenticated(get("/api/rentals")))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, rentalListCache.etag(false)))
+                .andExpect(queryCount(1))
+                .andExpect(result -> assertArrayEquals(expected, result.getResponse().getContentAsByteArray()));
+        // Toujours relu : rien n'est gardé en mémoire entre deux requêtes
+        mockMvc.perform(authenticated(get("/api/rentals")))
+                .andExpect(status().isOk())
+                .andExpect(queryCount(1));
+    }
+
+    @Test
+    void streamsGzip() throws Exception {
+        byte[] expected = rentalListCache.get().identity();
+
+        MvcResult result = mockMvc.perform(authenticated(get("/api/rentals"))
+                        .header(HttpHeaders.ACCEPT_ENCODING, "gzip"))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.CONTENT_ENCODING, "gzip"))
+                .andExpect(header().string(HttpHeaders.ETAG, rentalListCache.etag(true)))
+                .andReturn();
+        try (GZIPInputStream in = new GZIPInputStream(
+                new ByteArrayInputStream(result.getResponse().getContentAsByteArray()))) {
+            assertArrayEquals(expected, in.readAllBytes());
+        }
+    }
+
+    @Test
+    void gzipRefusedWithZeroQuality() throws Exception {
+        byte[] expected = rentalListCache.get().identity();
+
+        mockMvc.perform(authenticated(get("/api/rentals"))
+                        .header(HttpHeaders.ACCEPT_ENCODING, "gzip;q=0, identity"))
+                .andExpect(status().isOk())
+                .andExpect(header().doesNotExist(HttpHeaders.CONTENT_ENCODING))
+                .andExpect(header().string(HttpHeaders.ETAG, rentalListCache.etag(false)))
+                .andExpect(result -> assertArrayEquals(expected, result.getResponse().getContentAsByteArray()));
+        mockMvc.perform(authenticated(get("/api/rentals"))
+                        .header(HttpHeaders.ACCEPT_ENCODING, "br, *;q=0.5"))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.CONTENT_ENCODING, "gzip"));
+    }
+
+    @Test
+    void notModifiedWithoutQuery() throws Exception {
+        mockMvc.perform(authenticated(get("/api/rentals"))
+                        .header(HttpHeaders.IF_NONE_MATCH, rentalListCache.etag(false)))
+                .andExpect(status().isNotModified())
+                .andExpect(queryCount(0));
+    }
+
+    private MockHttpServletRequestBuilder authenticated(MockHttpServletRequestBuilder builder) {
+        return builder.header(HttpHeaders.AUTHORIZATION, "Bearer " + token);
+    }
+}
@@ -0,0 +1,107 @@
+package com.Chatop.API.load;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Remplit la base avec un jeu de données volumineux (utilisateurs, locations, messages) par insertions
+ * JDBC en lots. Les volumes sont libres : quelques milliers pour un test rapide, jusqu'à
+ * 1 M de locations / 10 M de messages pour un test d'échelle.
+ * <p>
+ * Tous les utilisateurs générés ont l'email {@code load-<n>@chatop.test} et le mot de passe {@link #PASSWORD}.
+ */
+class LoadDataGenerator {
+
+    static final String PASSWORD = "password";
+
+    private static final int BATCH_SIZE = 5_000;
+
+    private final JdbcTemplate jdbc;
+    private final String passwordHash;
+
+    /**
+     * @param passwordHash hash de {@link #PASSWORD}, calculé une seule fois pour tous les utilisateurs
+     */
+    LoadDataGenerator(JdbcTemplate jdbc, String passwordHash) {
+        this.jdbc = jdbc;
+        this.passwordHash = passwordHash;
+    }
+
+    static String email(int n) {
+        return "load-" + n + "@chatop.test";
+    }
+
+    /**
+     * @return les ids des utilisateurs générés, dans l'ordre de leur numéro
+     */
+    List<Long> seedUsers(int count) {
+        Timestamp now = Timestamp.from(Instant.now());
+        batches(count, (from, to) -> {
+            List<Object[]> rows = new ArrayList<>(to - from);
+            for (int i = from; i < to; i++) {
+                rows.add(new Object[]{email(i), "Load user " + i, passwordHash, now, now});
+            }
+            jdbc.batchUpdate("insert into users (email, name, password, created_at, updated_at) values (?, ?, ?, ?, ?)", rows);
+        });
+        return jdbc.queryForList("select id from users where email like 'load-%@chatop.test' order by id", Long.class);
+    }
+
+    /**
+     * @return les bornes {@code [min, max]} des ids des locations générées (attribués consécutivement)
+     */
+    long[] seedRentals(int count, List<Long> ownerIds) {
+        Instant start = Instant.now().minusSeconds(count);
+        batches(count, (from, to) -> {
+            ThreadLocalRandom random = ThreadLocalRandom.current();
+            List<Object[]> rows = new ArrayList<>(to - from);
+            for (int i = from; i < to; i++) {
+                Timestamp created = Timestamp.from(start.plusSeconds(i));
+                rows.add(new Object[]{
+                        "Appartement " + i,
+                        15 + random.nextInt(250),
+                        200 + random.nextInt(4000),
+                        "/images/load-" + (i % 100) + ".jpg",
+                        "Logement " + i + " proche du centre, cuisine équipée, balcon.",
+                        ownerIds.get(random.nextInt(ownerIds.size())),
+                        created, created});
+            }
+            jdbc.batchUpdate("insert into rentals (name, surface, price, picture, description, owner_id, created_at, updated_at)"
+                    + " values (?, ?, ?, ?, ?, ?, ?, ?)", rows);
+        });
+        return jdbc.queryForObject("select min(id), max(id) from rentals",
+                (rs, n) -> new long[]{rs.getLong(1), rs.getLong(2)});
+    }
+
+    void seedMessages(int count, List<Long> userIds, long[] rentalIds) {
+        Instant start = Instant.now().minusSeconds(count);
+        batches(count, (from, to) -> {
+            ThreadLocalRandom random = ThreadLocalRandom.current();
+            List<Object[]> rows = new ArrayList<>(to - from);
+            for (int i = from; i < to; i++) {
+                Timestamp created = Timestamp.from(start.plusSeconds(i));
+                rows.add(new Object[]{
+                        userIds.get(random.nextInt(userIds.size())),
+                        "Bonjour, la location " + i + " est-elle disponible ?",
+                        created, created,
+                        random.nextLong(rentalIds[0], rentalIds[1] + 1)});
+            }
+            jdbc.batchUpdate("insert into messages (rental_id, rental_owner_id, user_id, message, created_at, updated_at) "
+                    + "select r.id, r.owner_id, ?, ?, ?, ? from rentals r where r.id = ?", rows);
+        });
+    }
+
+    private interface Batch {
+        void insert(int from, int to);
+    }
+
+    private static void batches(int count, Batch batch) {
+        for (int from = 0; from < count; from += BATCH_SIZE) {
+            batch.insert(from, Math.min(count, from + BATCH_SIZE));
+        }
+    }
+}
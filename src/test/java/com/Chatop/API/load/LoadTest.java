@@ -0,0 +1,374 @@
+package com.Chatop.API.load;
+
+import com.Chatop.API.service.KnownEmailFilter;
+import com.Chatop.API.service.RentalListCache;
+import com.Chatop.API.service.RentalSearchIndex;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.test.context.ActiveProfiles;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Test de charge de l'API complète (contexte Spring réel, serveur HTTP, base H2 embarquée).
+ * <p>
+ * La base est d'abord remplie par {@link LoadDataGenerator}, puis {@code load.clients} clients
+ * enchaînent pendant {@code load.duration-seconds} des scénarios tirés au hasard : inscription, connexion,
+ * liste des locations, page de locations, détail, création avec upload d'image, envoi de message.
+ * Le débit et les latences p50 / p99 / p999 de chaque scénario sont affichés et écrits dans
+ * {@code target/load-test-report.json} ({@code load-test-report-virtual.json} avec
+ * {@code -Dspring.threads.virtual.enabled=true} : les deux modes d'exécution se comparent sur la même charge).
+ * <p>
+ * Le test échoue si le p99 d'un scénario dépasse de plus de {@code load.tolerance} (30 % par défaut)
+ * celui de la référence {@code src/test/resources/load/baseline.json}. Pour enregistrer une nouvelle
+ * référence : {@code -Dload.update-baseline=true}.
+ * <pre>
+ * mvn test -Pload
+ * mvn test -Pload -Dload.rentals=1000000 -Dload.messages=10000000 -Dload.duration-seconds=120
+ * mvn test -Pload -Dload.clients=400 -Dspring.threads.virtual.enabled=true
+ * </pre>
+ */
+@Tag("load")
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@ActiveProfiles("test")
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class LoadTest {
+
+    private static final int USERS = Integer.getInteger("load.users", 1_000);
+    private static final int RENTALS = Integer.getInteger("load.rentals", 10_000);
+    private static final int MESSAGES = Integer.getInteger("load.messages", 100_000);
+    private static final int CLIENTS = Integer.getInteger("load.clients", 32);
+    private static final int DURATION_SECONDS = Integer.getInteger("load.duration-seconds", 20);
+    private static final double TOLERANCE = Double.parseDouble(System.getProperty("load.tolerance", "0.3"));
+    private static final boolean UPDATE_BASELINE = Boolean.getBoolean("load.update-baseline");
+
+    private static final Path BASELINE = Path.of("src", "test", "resources", "load", "baseline.json");
+
+    /**
+     * Scénarios et poids relatifs (part des requêtes).
+     */
+    private enum Scenario {
+        REGISTER(2), LOGIN(5), LIST(10), PAGE(25), GET(35), UPLOAD(3), MESSAGE(20);
+
+        private final int weight;
+
+        Scenario(int weight) {
+            this.weight = weight;
+        }
+    }
+
+    @LocalServerPort
+    private int port;
+
+    @Value("${spring.threads.virtual.enabled:false}")
+    private boolean virtualThreads;
+
+    @Autowired
+    private JdbcTemplate jdbc;
+
+    @Autowired
+    private PasswordEncoder passwordEncoder;
+
+    @Autowired
+    private KnownEmailFilter knownEmailFilter;
+
+    @Autowired
+    private RentalSearchIndex rentalSearchIndex;
+
+    @Autowired
+    private RentalListCache rentalListCache;
+
+    private final ObjectMapper json = new ObjectMapper();
+    private final HttpClient http = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+    private final AtomicInteger registrations = new AtomicInteger();
+    private final Map<String, Long> userIds = new ConcurrentHashMap<>();
+
+    private long[] rentalIds;
+    private String[] tokens;
+    private byte[] picture;
+
+    @BeforeAll
+    void seed() throws Exception {
+        long start = System.nanoTime();
+        LoadDataGenerator generator = new LoadDataGenerator(jdbc, passwordEncoder.encode(LoadDataGenerator.PASSWORD));
+        List<Long> userIds = generator.seedUsers(USERS);
+        rentalIds = generator.seedRentals(RENTALS, userIds);
+        generator.seedMessages(MESSAGES, userIds, rentalIds);
+        System.out.printf(Locale.ROOT, "Seeded %d users, %d rentals, %d messages in %d s%n",
+                USERS, RENTALS, MESSAGES, TimeUnit.NANOSECONDS.toSeconds(System.nanoTime() - start));
+
+        // Les données ont été insérées sous l'application : recharger ses structures en mémoire.
+        knownEmailFilter.rebuild();
+        rentalSearchIndex.rebuild();
+        rentalListCache.invalidate();
+
+        tokens = new String[CLIENTS];
+        for (int i = 0; i < CLIENTS; i++) {
+            tokens[i] = login(LoadDataGenerator.email(i % USERS)).token();
+        }
+        picture = png();
+    }
+
+    @Test
+    void latencyStaysWithinBaseline() throws Exception {
+        Map<Scenario, Recorder> recorders = new ConcurrentHashMap<>();
+        for (Scenario s : Scenario.values()) {
+            recorders.put(s, new Recorder());
+        }
+
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(DURATION_SECONDS);
+        long start = System.nanoTime();
+        ExecutorService clients = Executors.newFixedThreadPool(CLIENTS);
+        List<Future<?>> running = new ArrayList<>();
+        for (int c = 0; c < CLIENTS; c++) {
+            String token = tokens[c];
+            running.add(clients.submit(() -> {
+                while (System.nanoTime() < deadline) {
+                    Scenario s = pick();
+                    long t0 = System.nanoTime();
+                    int status;
+                    try {
+                        status = run(s, token);
+                    } catch (Exception e) {
+                        status = -1;
+                    }
+                    recorders.get(s).record(System.nanoTime() - t0, status);
+                }
+                return null;
+            }));
+        }
+        for (Future<?> f : running) {
+            f.get();
+        }
+        clients.shutdown();
+        double elapsedSeconds = (System.nanoTime() - start) / 1e9;
+
+        ObjectNode report = json.createObjectNode();
+        System.out.printf(Locale.ROOT, "%s threads, %d clients%n", virtualThreads ? "Virtual" : "Platform", CLIENTS);
+        System.out.printf("%-10s %8s %7s %10s %9s %9s %9s%n", "scenario", "count", "errors", "req/s", "p50 ms", "p99 ms", "p999 ms");
+        for (Scenario s : Scenario.values()) {
+            Recorder r = recorders.get(s);
+            ObjectNode node = report.putObject(s.name().toLowerCase(Locale.ROOT));
+            node.put("count", r.count());
+            node.put("errors", r.errors.get());
+            node.put("throughput", round(r.count() / elapsedSeconds));
+            node.put("p50_ms", round(r.percentileMillis(0.50)));
+            node.put("p99_ms", round(r.percentileMillis(0.99)));
+            node.put("p999_ms", round(r.percentileMillis(0.999)));
+            System.out.printf(Locale.ROOT, "%-10s %8d %7d %10.1f %9.2f %9.2f %9.2f%n", s.name().toLowerCase(Locale.ROOT),
+                    r.count(), r.errors.get(), r.count() / elapsedSeconds,
+                    r.percentileMillis(0.50), r.percentileMillis(0.99), r.percentileMillis(0.999));
+        }
+        Path reportFile = Path.of("target", virtualThreads ? "load-test-report-virtual.json" : "load-test-report.json");
+        Files.createDirectories(reportFile.getParent());
+        json.writerWithDefaultPrettyPrinter().writeValue(reportFile.toFile(), report);
+
+        for (Scenario s : Scenario.values()) {
+            Recorder r = recorders.get(s);
+            assertThat(r.count()).as("%s requests", s).isPositive();
+            assertThat(r.errors.get()).as("%s errors (last status %d)", s, r.lastError.get()).isZero();
+        }
+
+        if (UPDATE_BASELINE) {
+            ObjectNode baseline = json.createObjectNode();
+            report.fields().forEachRemaining(e -> baseline.putObject(e.getKey()).set("p99_ms", e.getValue().get("p99_ms")));
+            json.writerWithDefaultPrettyPrinter().writeValue(BASELINE.toFile(), baseline);
+            return;
+        }
+        assertWithinBaseline(report);
+    }
+
+    private void assertWithinBaseline(JsonNode report) throws IOException {
+        if (!Files.exists(BASELINE)) {
+            return;
+        }
+        JsonNode baseline = json.readTree(BASELINE.toFile());
+        List<String> regressions = new ArrayList<>();
+        baseline.fields().forEachRemaining(e -> {
+            JsonNode measured = report.get(e.getKey());
+            double limit = e.getValue().get("p99_ms").asDouble() * (1 + TOLERANCE);
+            if (measured != null && measured.get("p99_ms").asDouble() > limit) {
+                regressions.add(String.format(Locale.ROOT, "%s p99 %.2f ms > %.2f ms",
+                        e.getKey(), measured.get("p99_ms").asDouble(), limit));
+            }
+        });
+        assertThat(regressions).as("p99 latency regressions against %s", BASELINE).isEmpty();
+    }
+
+    private static Scenario pick() {
+        int total = Arrays.stream(Scenario.values()).mapToInt(s -> s.weight).sum();
+        int n = ThreadLocalRandom.current().nextInt(total);
+        for (Scenario s : Scenario.values()) {
+            n -= s.weight;
+            if (n < 0) {
+                return s;
+            }
+        }
+        throw new IllegalStateException();
+    }
+
+    private int run(Scenario scenario, String token) throws Exception {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        return switch (scenario) {
+            case REGISTER -> send(post("/api/auth/register", null, String.format(
+                    "{\"email\":\"new-%d@chatop.test\",\"name\":\"New user\",\"password\":\"password\"}",
+                    registrations.incrementAndGet())));
+            case LOGIN -> login(LoadDataGenerator.email(random.nextInt(USERS))).status();
+            case LIST -> send(get("/api/rentals", token).header("Accept-Encoding", "gzip").build());
+            case PAGE -> send(get("/api/rentals?limit=20&sort=price&minPrice=" + random.nextInt(3000), token).build());
+            case GET -> send(get("/api/rentals/" + random.nextLong(rentalIds[0], rentalIds[1] + 1), token).build());
+            case UPLOAD -> send(upload(token));
+            case MESSAGE -> send(post("/api/messages", token, String.format(
+                    "{\"rental_id\":%d,\"user_id\":%d,\"message\":\"Bonjour\"}",
+                    random.nextLong(rentalIds[0], rentalIds[1] + 1), userId(token))));
+        };
+    }
+
+    private Login login(String email) throws IOException, InterruptedException {
+        HttpResponse<byte[]> response = http.send(post("/api/auth/login", null, String.format(
+                "{\"email\":\"%s\",\"password\":\"%s\"}", email, LoadDataGenerator.PASSWORD)),
+                HttpResponse.BodyHandlers.ofByteArray());
+        String token = response.statusCode() == 200 ? json.readTree(response.body()).get("token").asText() : null;
+        return new Login(response.statusCode(), token);
+    }
+
+    private int send(HttpRequest request) throws IOException, InterruptedException {
+        return http.send(request, HttpResponse.BodyHandlers.discarding()).statusCode();
+    }
+
+    private HttpRequest.Builder get(String path, String token) {
+        return HttpRequest.newBuilder(uri(path)).header("Authorization", "Bearer " + token).GET();
+    }
+
+    private HttpRequest post(String path, String token, String body) {
+        HttpRequest.Builder b = HttpRequest.newBuilder(uri(path))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(body));
+        if (token != null) {
+            b.header("Authorization", "Bearer " + token);
+        }
+        return b.build();
+    }
+
+    private HttpRequest upload(String token) {
+        String boundary = "load-" + System.nanoTime();
+        ByteArrayOutputStream body = new ByteArrayOutputStream();
+        Map<String, String> fields = new LinkedHashMap<>();
+        fields.put("name", "Nouvelle location");
+        fields.put("surface", "42");
+        fields.put("price", "900");
+        fields.put("description", "Créée par le test de charge");
+        fields.forEach((name, value) -> body.writeBytes(("--" + boundary + "\r\nContent-Disposition: form-data; name=\""
+                + name + "\"\r\n\r\n" + value + "\r\n").getBytes(StandardCharsets.UTF_8)));
+        body.writeBytes(("--" + boundary + "\r\nContent-Disposition: form-data; name=\"picture\"; filename=\"picture.png\"\r\n"
+                + "Content-Type: image/png\r\n\r\n").getBytes(StandardCharsets.UTF_8));
+        body.writeBytes(picture);
+        body.writeBytes(("\r\n--" + boundary + "--\r\n").getBytes(StandardCharsets.UTF_8));
+        return HttpRequest.newBuilder(uri("/api/rentals"))
+                .header("Authorization", "Bearer " + token)
+                .header("Content-Type", "multipart/form-data; boundary=" + boundary)
+                .POST(HttpRequest.BodyPublishers.ofByteArray(body.toByteArray()))
+                .build();
+    }
+
+    private long userId(String token) {
+        return userIds.computeIfAbsent(token, t -> {
+            try {
+                HttpResponse<byte[]> me = http.send(get("/api/auth/me", t).build(), HttpResponse.BodyHandlers.ofByteArray());
+                return json.readTree(me.body()).get("id").asLong();
+            } catch (IOException | InterruptedException e) {
+                throw new IllegalStateException(e);
+            }
+        });
+    }
+
+    private URI uri(String path) {
+        return URI.create("http://localhost:" + port + path);
+    }
+
+    private static byte[] png() throws IOException {
+        BufferedImage image = new BufferedImage(64, 48, BufferedImage.TYPE_INT_RGB);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ImageIO.write(image, "png", out);
+        return out.toByteArray();
+    }
+
+    private static double round(double value) {
+        return Math.round(value * 100) / 100.0;
+    }
+
+    /**
+     * Latences d'un scénario (nanosecondes) et nombre de réponses en erreur.
+     */
+    private static final class Recorder {
+        private long[] latencies = new long[1024];
+        private int size;
+        private final AtomicLong errors = new AtomicLong();
+        private final AtomicInteger lastError = new AtomicInteger();
+
+        synchronized void record(long nanos, int status) {
+            if (size == latencies.length) {
+                latencies = Arrays.copyOf(latencies, size * 2);
+            }
+            latencies[size++] = nanos;
+            if (status < 200 || status >= 300) {
+                errors.incrementAndGet();
+                lastError.set(status);
+            }
+        }
+
+        synchronized int count() {
+            return size;
+        }
+
+        synchronized double percentileMillis(double p) {
+            if (size == 0) {
+                return 0;
+            }
+            long[] sorted = Arrays.copyOf(latencies, size);
+            Arrays.sort(sorted);
+            int index = (int) Math.min(size - 1, Math.ceil(p * size) - 1);
+            return sorted[Math.max(0, index)] / 1e6;
+        }
+    }
+
+    private record Login(int status, String token) {
+    }
+}
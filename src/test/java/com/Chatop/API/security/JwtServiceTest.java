@@ -0,0 +1,71 @@
+package com.Chatop.API.security;
+
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.SignatureAlgorithm;
+import io.jsonwebtoken.security.Keys;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.Base64;
+import java.util.Date;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class JwtServiceTest {
+
+    private static final String SECRET = "dGVzdC1zZWNyZXQtdGVzdC1zZWNyZXQtdGVzdC1zZWNyZXQtdGVzdC1zZWNyZXQ=";
+
+    private SimpleMeterRegistry meterRegistry;
+    private JwtService jwtService;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        jwtService = service(SECRET);
+    }
+
+    @Test
+    void validTokenIsVerifiedOnceThenServedFromCache() {
+        String token = jwtService.generateToken("alice@test", Map.of("userId", 7L, "name", "Alice"));
+
+        assertThat(jwtService.parseValidClaims(token)).hasValueSatisfying(c -> {
+            assertThat(c.getSubject()).isEqualTo("alice@test");
+            assertThat(c.get("userId", Long.class)).isEqualTo(7L);
+        });
+        assertThat(jwtService.parseValidClaims(token)).isPresent();
+
+        assertThat(meterRegistry.get("jwt.verify").tag("cache", "miss").tag("result", "valid").timer().count()).isEqualTo(1);
+        assertThat(meterRegistry.get("jwt.verify").tag("cache", "hit").timer().count()).isEqualTo(1);
+    }
+
+    @Test
+    void rejectsTamperedExpiredAndForeignTokens() {
+        String token = jwtService.generateToken("alice@test", Map.of("userId", 7L));
+        String tampered = token.substring(0, token.length() - 2) + (token.endsWith("AA") ? "BB" : "AA");
+        String foreign = service("b3RoZXItc2VjcmV0LW90aGVyLXNlY3JldC1vdGhlci1zZWNyZXQtb3RoZXItc2VjcmV0")
+                .generateToken("alice@test", Map.of("userId", 7L));
+        String expired = Jwts.builder()
+                .setSubject("alice@test")
+                .setExpiration(new Date(System.currentTimeMillis() - 1_000))
+                .signWith(Keys.hmacShaKeyFor(Base64.getDecoder().decode(SECRET)), SignatureAlgorithm.HS256)
+                .compact();
+
+        assertThat(jwtService.parseValidClaims(tampered)).isEmpty();
+        assertThat(jwtService.parseValidClaims(foreign)).isEmpty();
+        assertThat(jwtService.parseValidClaims(expired)).isEmpty();
+        assertThat(jwtService.parseValidClaims("not-a-jwt")).isEmpty();
+        assertThat(meterRegistry.get("jwt.verify").tag("result", "invalid").timer().count()).isEqualTo(4);
+    }
+
+    private JwtService service(String secret) {
+        JwtService service = new JwtService(meterRegistry);
+        ReflectionTestUtils.setField(service, "secret", secret);
+        ReflectionTestUtils.setField(service, "expirationSeconds", 3600L);
+        ReflectionTestUtils.setField(service, "verifiedCacheSize", 100);
+        ReflectionTestUtils.invokeMethod(service, "init");
+        return service;
+    }
+}
@@ -0,0 +1,118 @@
+package com.Chatop.API.security;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class PasswordHashingServiceTest {
+
+    private final CountDownLatch release = new CountDownLatch(1);
+    private PasswordHashingService service;
+
+    @AfterEach
+    void tearDown() {
+        release.countDown();
+        if (service != null) {
+            service.shutdown();
+        }
+    }
+
+    @Test
+    void weakerHashNeedsRehash() {
+        service = service(new BCryptPasswordEncoder(5), 1, 1, Duration.ofSeconds(5));
+        String weak = new BCryptPasswordEncoder(4).encode("password");
+        String current = service.encode("password");
+
+        assertThat(service.matches("password", weak)).isTrue();
+        assertThat(service.needsRehash(weak)).isTrue();
+        assertThat(service.needsRehash(current)).isFalse();
+    }
+
+    @Test
+    void saturatedPoolIsRejectedWith503() throws Exception {
+        CountDownLatch started = new CountDownLatch(1);
+        service = service(blockingEncoder(started), 1, 1, Duration.ofSeconds(30));
+
+        // Un hachage en cours, un en file : le suivant est refusé sans attendre
+        CompletableFuture<String> running = CompletableFuture.supplyAsync(() -> service.encode("a"));
+        assertThat(started.await(5, TimeUnit.SECONDS)).isTrue();
+        CompletableFuture<String> queued = CompletableFuture.supplyAsync(() -> service.encode("b"));
+        waitForQueueSize(1);
+
+        assertThatThrownBy(() -> service.encode("c"))
+                .isInstanceOfSatisfying(ResponseStatusException.class,
+                        e -> assertThat(e.getStatusCode()).isEqualTo(HttpStatus.SERVICE_UNAVAILABLE));
+
+        release.countDown();
+        assertThat(running.get(5, TimeUnit.SECONDS)).isEqualTo("hash");
+        assertThat(queued.get(5, TimeUnit.SECONDS)).isEqualTo("hash");
+    }
+
+    @Test
+    void timedOutRequestLeavesTheQueue() throws Exception {
+        CountDownLatch started = new CountDownLatch(1);
+        service = service(blockingEncoder(started), 1, 1, Duration.ofMillis(100));
+        CompletableFuture.runAsync(() -> {
+            try {
+                service.encode("a");
+            } catch (ResponseStatusException ignored) {
+                // Expire aussi, le hachage continue sur le pool
+            }
+        });
+        assertThat(started.await(5, TimeUnit.SECONDS)).isTrue();
+
+        assertThatThrownBy(() -> service.encode("b"))
+                .isInstanceOfSatisfying(ResponseStatusException.class,
+                        e -> assertThat(e.getStatusCode()).isEqualTo(HttpStatus.SERVICE_UNAVAILABLE));
+        // Place libérée tout de suite, sans attendre que le thread occupé dépile la tâche annulée
+        assertThat(executor().getQueue()).isEmpty();
+    }
+
+    private PasswordEncoder blockingEncoder(CountDownLatch started) {
+        PasswordEncoder encoder = mock(PasswordEncoder.class);
+        when(encoder.encode(anyString())).thenAnswer(invocation -> {
+            started.countDown();
+            release.await();
+            return "hash";
+        });
+        return encoder;
+    }
+
+    private void waitForQueueSize(int size) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (executor().getQueue().size() < size) {
+            assertThat(System.nanoTime()).isLessThan(deadline);
+            Thread.sleep(10);
+        }
+    }
+
+    private ThreadPoolExecutor executor() {
+        return (ThreadPoolExecutor) ReflectionTestUtils.getField(service, "executor");
+    }
+
+    private static PasswordHashingService service(PasswordEncoder encoder, int threads, int queueCapacity, Duration timeout) {
+        PasswordHashingService s = new PasswordHashingService(encoder, new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(s, "threads", threads);
+        ReflectionTestUtils.setField(s, "queueCapacity", queueCapacity);
+        ReflectionTestUtils.setField(s, "timeout", timeout);
+        ReflectionTestUtils.invokeMethod(s, "init");
+        return s;
+    }
+}
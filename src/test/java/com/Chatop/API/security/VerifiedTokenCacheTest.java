@@ -0,0 +1,58 @@
+package com.Chatop.API.security;
+
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.Jwts;
+import org.junit.jupiter.api.Test;
+
+import java.util.Date;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class VerifiedTokenCacheTest {
+
+    private static final long NOW = 1_700_000_000_000L;
+
+    @Test
+    void returnsCachedClaimsUntilExpiration() {
+        VerifiedTokenCache cache = new VerifiedTokenCache(10);
+        Claims claims = claims("alice", NOW + 1_000);
+
+        cache.put("token-a", claims, NOW);
+
+        assertThat(cache.get("token-a", NOW)).isSameAs(claims);
+        assertThat(cache.get("token-b", NOW)).isNull();
+        assertThat(cache.get("token-a", NOW + 1_000)).isNull();
+        assertThat(cache.size()).isZero();
+    }
+
+    @Test
+    void evictsLeastRecentlyUsedWhenFull() {
+        VerifiedTokenCache cache = new VerifiedTokenCache(2);
+        cache.put("a", claims("a", NOW + 60_000), NOW);
+        cache.put("b", claims("b", NOW + 60_000), NOW);
+        // "a" relu : "b" devient le moins récemment utilisé
+        cache.get("a", NOW);
+
+        cache.put("c", claims("c", NOW + 60_000), NOW);
+
+        assertThat(cache.size()).isEqualTo(2);
+        assertThat(cache.get("a", NOW)).isNotNull();
+        assertThat(cache.get("b", NOW)).isNull();
+        assertThat(cache.get("c", NOW)).isNotNull();
+    }
+
+    @Test
+    void ignoresExpiredTokensAndDisabledCache() {
+        VerifiedTokenCache cache = new VerifiedTokenCache(2);
+        cache.put("expired", claims("x", NOW), NOW);
+        assertThat(cache.size()).isZero();
+
+        VerifiedTokenCache disabled = new VerifiedTokenCache(0);
+        disabled.put("a", claims("a", NOW + 60_000), NOW);
+        assertThat(disabled.get("a", NOW)).isNull();
+    }
+
+    private static Claims claims(String subject, long expiresAtMillis) {
+        return Jwts.claims().setSubject(subject).setExpiration(new Date(expiresAtMillis));
+    }
+}
@@ -0,0 +1,134 @@
+package com.Chatop.API.service;
+
+import com.Chatop.API.dto.auth.LoginRequest;
+import com.Chatop.API.dto.auth.RegisterRequest;
+import com.Chatop.API.model.User;
+import com.Chatop.API.repository.UserRepository;
+import com.Chatop.API.security.JwtService;
+import com.Chatop.API.security.PasswordHashingService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DataIntegrityViolationException;
+
+import java.time.Instant;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyMap;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class AuthServiceTest {
+
+    private static final String EMAIL = "taken@chatop.test";
+
+    private UserRepository userRepository;
+    private PasswordHashingService passwordHashingService;
+    private KnownEmailFilter knownEmailFilter;
+    private AuthService authService;
+
+    @BeforeEach
+    void setUp() {
+        userRepository = mock(UserRepository.class);
+        passwordHashingService = mock(PasswordHashingService.class);
+        knownEmailFilter = mock(KnownEmailFilter.class);
+        JwtService jwtService = mock(JwtService.class);
+        when(passwordHashingService.encode(anyString())).thenReturn("hash");
+        when(jwtService.generateToken(anyString(), anyMap())).thenReturn("token");
+        authService = new AuthService(userRepository, passwordHashingService, jwtService, knownEmailFilter);
+    }
+
+    @Test
+    void probablyKnownEmailIsCheckedBeforeHashing() {
+        when(knownEmailFilter.isActive()).thenReturn(true);
+        when(knownEmailFilter.mightContain(EMAIL)).thenReturn(true);
+        when(userRepository.existsByEmail(EMAIL)).thenReturn(true);
+
+        assertThatThrownBy(() -> authService.register(request(EMAIL)))
+                .isInstanceOf(IllegalArgumentException.class);
+        verify(passwordHashingService, never()).encode(anyString());
+        verify(userRepository, never()).save(any());
+    }
+
+    @Test
+    void unknownEmailIsInsertedWithoutLookup() {
+        when(knownEmailFilter.isActive()).thenReturn(true);
+        when(knownEmailFilter.mightContain("new@chatop.test")).thenReturn(false);
+        when(userRepository.save(any())).thenAnswer(invocation -> withId(invocation.getArgument(0)));
+
+        assertThat(authService.register(request("new@chatop.test")).getToken()).isEqualTo("token");
+        verify(userRepository, never()).existsByEmail(anyString());
+        verify(knownEmailFilter).add("new@chatop.test");
+    }
+
+    @Test
+    void withoutFilterDuplicateIsRejectedByUniqueConstraint() {
+        when(knownEmailFilter.isActive()).thenReturn(false);
+        when(knownEmailFilter.mightContain(anyString())).thenReturn(true);
+        when(userRepository.save(any())).thenThrow(new DataIntegrityViolationException("uk_users_email"));
+
+        assertThatThrownBy(() -> authService.register(request(EMAIL)))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessage("Email already in use");
+        verify(userRepository, never()).existsByEmail(anyString());
+        verify(knownEmailFilter, never()).add(anyString());
+    }
+
+    @Test
+    void loginRehashesWeakerHash() {
+        User user = knownUser("$2a$04$weak");
+        when(passwordHashingService.matches("password", "$2a$04$weak")).thenReturn(true);
+        when(passwordHashingService.needsRehash("$2a$04$weak")).thenReturn(true);
+        when(passwordHashingService.encode("password")).thenReturn("$2a$10$strong");
+
+        assertThat(authService.login(login()).getToken()).isEqualTo("token");
+        verify(userRepository).updatePassword(eq(user.getId()), eq("$2a$10$strong"), any(Instant.class));
+    }
+
+    @Test
+    void loginKeepsCurrentHash() {
+        knownUser("$2a$10$strong");
+        when(passwordHashingService.matches("password", "$2a$10$strong")).thenReturn(true);
+        when(passwordHashingService.needsRehash("$2a$10$strong")).thenReturn(false);
+
+        authService.login(login());
+        verify(userRepository, never()).updatePassword(any(), anyString(), any());
+        verify(passwordHashingService, never()).encode(anyString());
+    }
+
+    private User knownUser(String hash) {
+        User user = withId(new User());
+        user.setName("Name");
+        user.setEmail(EMAIL);
+        user.setPassword(hash);
+        when(knownEmailFilter.mightContain(EMAIL)).thenReturn(true);
+        when(userRepository.findByEmail(EMAIL)).thenReturn(Optional.of(user));
+        return user;
+    }
+
+    private static LoginRequest login() {
+        LoginRequest req = new LoginRequest();
+        req.setEmail(EMAIL);
+        req.setPassword("password");
+        return req;
+    }
+
+    private static RegisterRequest request(String email) {
+        RegisterRequest req = new RegisterRequest();
+        req.setName("Name");
+        req.setEmail(email);
+        req.setPassword("password");
+        return req;
+    }
+
+    private static User withId(User u) {
+        u.setId(42L);
+        return u;
+    }
+}
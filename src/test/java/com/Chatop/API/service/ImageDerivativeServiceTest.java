@@ -0,0 +1,74 @@
+package com.Chatop.API.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.time.Duration;
+import java.time.Instant;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+
+class ImageDerivativeServiceTest {
+
+    @TempDir
+    Path dir;
+
+    private RentalService rentalService;
+    private ImageDerivativeService service;
+
+    @BeforeEach
+    void setUp() {
+        FileStorageService storage = new FileStorageService(new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(storage, "uploadDir", dir.toString());
+        ReflectionTestUtils.setField(storage, "publicBaseUrl", "/images");
+        ReflectionTestUtils.setField(storage, "publicBaseUrlHost", "http://localhost:3001");
+        ReflectionTestUtils.invokeMethod(storage, "init");
+
+        rentalService = mock(RentalService.class);
+        service = new ImageDerivativeService(storage, rentalService);
+    }
+
+    @Test
+    void reusedDerivativesAreRefreshedForTheSweeper() throws Exception {
+        ImageIO.write(new BufferedImage(400, 300, BufferedImage.TYPE_INT_RGB), "jpg", dir.resolve("aaaa.jpg").toFile());
+        // Déclinaisons d'un upload identique plus ancien, proches de l'expiration
+        FileTime old = FileTime.from(Instant.now().minus(Duration.ofDays(2)));
+        for (String suffix : new String[]{"thumb", "card", "full"}) {
+            Path derivative = Files.writeString(dir.resolve("aaaa-" + suffix + ".jpg"), suffix);
+            Files.setLastModifiedTime(derivative, old);
+        }
+
+        service.generate(1L, "/images/aaaa.jpg");
+
+        for (String suffix : new String[]{"thumb", "card", "full"}) {
+            Path derivative = dir.resolve("aaaa-" + suffix + ".jpg");
+            assertThat(Files.getLastModifiedTime(derivative).toInstant()).isAfter(Instant.now().minusSeconds(60));
+            // Réutilisée telle quelle, pas régénérée
+            assertThat(Files.readString(derivative)).isEqualTo(suffix);
+        }
+        verify(rentalService).updatePictureDerivatives(eq(1L), eq("/images/aaaa.jpg"),
+                eq("http://localhost:3001/images/aaaa-thumb.jpg"), eq("http://localhost:3001/images/aaaa-card.jpg"),
+                eq("http://localhost:3001/images/aaaa-full.jpg"));
+    }
+
+    @Test
+    void missingDerivativesAreGenerated() throws Exception {
+        ImageIO.write(new BufferedImage(2000, 1000, BufferedImage.TYPE_INT_RGB), "jpg", dir.resolve("bbbb.jpg").toFile());
+
+        service.generate(2L, "/images/bbbb.jpg");
+
+        assertThat(ImageIO.read(dir.resolve("bbbb-thumb.jpg").toFile()).getWidth()).isEqualTo(320);
+        assertThat(ImageIO.read(dir.resolve("bbbb-full.jpg").toFile()).getWidth()).isEqualTo(1600);
+    }
+}
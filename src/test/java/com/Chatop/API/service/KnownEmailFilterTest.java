@@ -0,0 +1,86 @@
+package com.Chatop.API.service;
+
+import com.Chatop.API.repository.UserRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Limit;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class KnownEmailFilterTest {
+
+    private static final int USERS = 1_000;
+
+    private UserRepository userRepository;
+    private KnownEmailFilter filter;
+
+    @BeforeEach
+    void setUp() {
+        userRepository = mock(UserRepository.class);
+        List<Object[]> rows = new ArrayList<>();
+        for (long id = 1; id <= USERS; id++) {
+            rows.add(new Object[]{id, "user" + id + "@chatop.test"});
+        }
+        when(userRepository.findEmailsAfter(anyLong(), any(Limit.class))).thenReturn(rows);
+        filter = filter(true);
+    }
+
+    @Test
+    void answersMaybeUntilLoaded() {
+        assertThat(filter.isActive()).isFalse();
+        assertThat(filter.mightContain("unknown@chatop.test")).isTrue();
+
+        filter.rebuild();
+
+        assertThat(filter.isActive()).isTrue();
+    }
+
+    @Test
+    void neverMissesKnownEmailsAndRejectsMostUnknownOnes() {
+        filter.rebuild();
+
+        // Casse et espaces ignorés, comme à l'enregistrement
+        assertThat(IntStream.rangeClosed(1, USERS)).allMatch(i -> filter.mightContain(" USER" + i + "@chatop.test"));
+        long falsePositives = IntStream.rangeClosed(1, 10_000)
+                .filter(i -> filter.mightContain("stranger" + i + "@chatop.test")).count();
+        // Taux cible 1 % ; marge pour la dispersion
+        assertThat(falsePositives).isLessThan(300);
+    }
+
+    @Test
+    void seesEmailsAddedAfterLoading() {
+        filter.rebuild();
+        assertThat(filter.mightContain("new@chatop.test")).isFalse();
+
+        filter.add("new@chatop.test");
+
+        assertThat(filter.mightContain("new@chatop.test")).isTrue();
+    }
+
+    @Test
+    void disabledFilterAlwaysAnswersMaybe() {
+        KnownEmailFilter disabled = filter(false);
+        disabled.rebuild();
+
+        assertThat(disabled.isActive()).isFalse();
+        assertThat(disabled.mightContain("stranger@chatop.test")).isTrue();
+    }
+
+    private KnownEmailFilter filter(boolean enabled) {
+        KnownEmailFilter f = new KnownEmailFilter(userRepository);
+        ReflectionTestUtils.setField(f, "enabled", enabled);
+        ReflectionTestUtils.setField(f, "expectedEmails", 10_000);
+        ReflectionTestUtils.setField(f, "falsePositiveRate", 0.01);
+        ReflectionTestUtils.invokeMethod(f, "init");
+        return f;
+    }
+}
@@ -0,0 +1,178 @@
+package com.Chatop.API.service;
+
+import com.Chatop.API.dto.message.MessageResponse;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Diffusion SSE avec des emitters qui enregistrent les événements envoyés au lieu de les écrire dans une réponse.
+ */
+class MessageStreamBrokerTest {
+
+    private final List<RecordingEmitter> emitters = new CopyOnWriteArrayList<>();
+    private volatile CountDownLatch sendGate;
+    private MessageStreamBroker broker;
+
+    @BeforeEach
+    void setUp() {
+        broker = new MessageStreamBroker() {
+            @Override
+            SseEmitter newEmitter() {
+                RecordingEmitter emitter = new RecordingEmitter(sendGate);
+                emitters.add(emitter);
+                return emitter;
+            }
+        };
+        ReflectionTestUtils.setField(broker, "queueCapacity", 2);
+        ReflectionTestUtils.setField(broker, "heartbeat", Duration.ofMinutes(1));
+        ReflectionTestUtils.setField(broker, "timeout", Duration.ofMinutes(30));
+        ReflectionTestUtils.setField(broker, "maxConnectionsPerUser", 2);
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (sendGate != null) {
+            sendGate.countDown();
+        }
+        broker.shutdown();
+    }
+
+    @Test
+    void messageReachesEveryConnectionOfTheOwnerOnly() {
+        RecordingEmitter laptop = (RecordingEmitter) broker.subscribe(1L);
+        RecordingEmitter phone = (RecordingEmitter) broker.subscribe(1L);
+        RecordingEmitter otherUser = (RecordingEmitter) broker.subscribe(2L);
+
+        broker.publish(1L, message(10L, "Bonjour"));
+
+        waitUntil(() -> laptop.events.size() == 1 && phone.events.size() == 1);
+        assertThat(laptop.events.get(0)).contains("event:message", "id:10", "Bonjour");
+        assertThat(phone.events.get(0)).contains("Bonjour");
+        assertThat(otherUser.events).isEmpty();
+    }
+
+    @Test
+    void slowConsumerIsDisconnected() {
+        // Le premier envoi reste bloqué : la file (capacité 2) se remplit puis déborde
+        sendGate = new CountDownLatch(1);
+        RecordingEmitter slow = (RecordingEmitter) broker.subscribe(1L);
+
+        broker.publish(1L, message(1L, "m1"));
+        waitUntil(() -> slow.sending);
+        broker.publish(1L, message(2L, "m2"));
+        broker.publish(1L, message(3L, "m3"));
+        assertThat(slow.completed).isFalse();
+        broker.publish(1L, message(4L, "m4"));
+
+        assertThat(slow.completed).isTrue();
+        // La place est libérée : deux nouvelles connexions sont acceptées
+        broker.subscribe(1L);
+        broker.subscribe(1L);
+    }
+
+    @Test
+    void idleConnectionReceivesHeartbeats() {
+        ReflectionTestUtils.setField(broker, "heartbeat", Duration.ofMillis(50));
+        RecordingEmitter emitter = (RecordingEmitter) broker.subscribe(1L);
+
+        waitUntil(() -> emitter.events.size() >= 2);
+        assertThat(emitter.events).allMatch(e -> e.startsWith(":heartbeat"));
+    }
+
+    @Test
+    void connectionsPerUserAreCapped() {
+        broker.subscribe(1L);
+        broker.subscribe(1L);
+
+        assertThatThrownBy(() -> broker.subscribe(1L))
+                .isInstanceOfSatisfying(ResponseStatusException.class,
+                        e -> assertThat(e.getStatusCode()).isEqualTo(HttpStatus.TOO_MANY_REQUESTS));
+        // Les autres utilisateurs ne sont pas concernés
+        broker.subscribe(2L);
+    }
+
+    @Test
+    void timedOutConnectionIsCompletedAndReleased() {
+        RecordingEmitter first = (RecordingEmitter) broker.subscribe(1L);
+        broker.subscribe(1L);
+
+        first.timeoutCallback.run();
+
+        assertThat(first.completed).isTrue();
+        broker.subscribe(1L);
+    }
+
+    private static MessageResponse message(Long id, String text) {
+        Instant now = Instant.now();
+        return new MessageResponse(id, 1L, 2L, text, now, now);
+    }
+
+    private static void waitUntil(BooleanSupplier condition) {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (!condition.getAsBoolean()) {
+            assertThat(System.nanoTime()).as("condition not met within 5 s").isLessThan(deadline);
+            try {
+                Thread.sleep(10);
+            } catch (InterruptedException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+    }
+
+    /**
+     * Enregistre le texte de chaque événement ; si {@code gate} est fourni, chaque envoi l'attend.
+     */
+    private static final class RecordingEmitter extends SseEmitter {
+        final List<String> events = new CopyOnWriteArrayList<>();
+        private final CountDownLatch gate;
+        volatile boolean sending;
+        volatile boolean completed;
+        volatile Runnable timeoutCallback;
+
+        RecordingEmitter(CountDownLatch gate) {
+            this.gate = gate;
+        }
+
+        @Override
+        public void send(SseEventBuilder builder) throws IOException {
+            sending = true;
+            if (gate != null) {
+                try {
+                    gate.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new IOException(e);
+                }
+            }
+            events.add(builder.build().stream().map(d -> String.valueOf(d.getData())).collect(Collectors.joining()));
+        }
+
+        @Override
+        public void complete() {
+            completed = true;
+        }
+
+        @Override
+        public synchronized void onTimeout(Runnable callback) {
+            timeoutCallback = callback;
+        }
+    }
+}
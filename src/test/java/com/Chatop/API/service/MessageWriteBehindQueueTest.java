@@ -0,0 +1,189 @@
+package com.Chatop.API.service;
+
+import com.Chatop.API.dto.message.MessageResponse;
+import com.Chatop.API.repository.MessageRepository;
+import jakarta.persistence.EntityManager;
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.http.HttpStatus;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLTransientConnectionException;
+import java.time.Duration;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.function.BooleanSupplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * File d'ingestion différée sur une base H2 embarquée, dont les connexions peuvent être coupées
+ * pour simuler une panne.
+ */
+class MessageWriteBehindQueueTest {
+
+    private static final long RENTAL = 1L;
+    private static final long OWNER = 1L;
+    private static final long SENDER = 2L;
+
+    private SwitchableDataSource dataSource;
+    private JdbcTemplate jdbc;
+    private MessageStreamBroker broker;
+    private MessageWriteBehindQueue queue;
+
+    @BeforeEach
+    void setUp() {
+        dataSource = new SwitchableDataSource(new DriverManagerDataSource(
+                "jdbc:h2:mem:write-behind-" + UUID.randomUUID() + ";MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1",
+                "sa", ""));
+        Flyway.configure().dataSource(dataSource).load().migrate();
+        jdbc = new JdbcTemplate(dataSource);
+        jdbc.update("insert into users (id, name, email, password, created_at, updated_at) values "
+                + "(1, 'owner', 'owner@test', 'x', now(), now()), (2, 'sender', 'sender@test', 'x', now(), now())");
+        jdbc.update("insert into rentals (id, name, surface, price, picture, description, owner_id, created_at, updated_at) "
+                + "values (1, 'r', 10, 100, '/images/r.jpg', 'd', 1, now(), now())");
+
+        broker = mock(MessageStreamBroker.class);
+        queue = new MessageWriteBehindQueue(jdbc, new TransactionTemplate(new DataSourceTransactionManager(dataSource)), broker);
+        ReflectionTestUtils.setField(queue, "queueCapacity", 2);
+        ReflectionTestUtils.setField(queue, "batchSize", 3);
+        ReflectionTestUtils.setField(queue, "maxDelay", Duration.ofSeconds(30));
+        ReflectionTestUtils.setField(queue, "shutdownTimeout", Duration.ofSeconds(10));
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        dataSource.down = false;
+        if (ReflectionTestUtils.getField(queue, "flusher") != null) {
+            queue.stop();
+        }
+    }
+
+    @Test
+    void fullBatchIsInsertedWithoutWaitingForMaxDelay() {
+        ReflectionTestUtils.setField(queue, "queueCapacity", 10);
+        queue.start();
+
+        for (int i = 0; i < 3; i++) {
+            assertThat(queue.offer(RENTAL, OWNER, SENDER, "m" + i)).isTrue();
+        }
+
+        // Bien avant max-delay (30 s) : le lot est parti dès son 3e message
+        waitUntil(() -> messageCount() == 3, Duration.ofSeconds(5));
+        ArgumentCaptor<MessageResponse> published = ArgumentCaptor.forClass(MessageResponse.class);
+        verify(broker, timeout(5_000).times(3)).publish(eq(OWNER), published.capture());
+        assertThat(published.getAllValues()).extracting(MessageResponse::getId)
+                .containsExactlyElementsOf(jdbc.queryForList("select id from messages order by id", Long.class));
+    }
+
+    @Test
+    void shutdownFlushesPendingMessages() throws Exception {
+        ReflectionTestUtils.setField(queue, "queueCapacity", 10);
+        queue.start();
+        queue.offer(RENTAL, OWNER, SENDER, "a");
+        queue.offer(RENTAL, OWNER, SENDER, "b");
+
+        queue.stop();
+
+        assertThat(messageCount()).isEqualTo(2);
+        assertThat(queue.offer(RENTAL, OWNER, SENDER, "late")).isFalse();
+    }
+
+    @Test
+    void outageKeepsMessagesAndFillsQueue() {
+        dataSource.down = true;
+        ReflectionTestUtils.setField(queue, "maxDelay", Duration.ofMillis(50));
+        queue.start();
+
+        // Le premier est retenu par le flusher (retenté), les deux suivants remplissent la file
+        assertThat(queue.offer(RENTAL, OWNER, SENDER, "m0")).isTrue();
+        waitUntil(() -> dataSource.failures > 0, Duration.ofSeconds(5));
+        assertThat(queue.offer(RENTAL, OWNER, SENDER, "m1")).isTrue();
+        assertThat(queue.offer(RENTAL, OWNER, SENDER, "m2")).isTrue();
+        assertThat(queue.offer(RENTAL, OWNER, SENDER, "m3")).isFalse();
+
+        dataSource.down = false;
+        waitUntil(() -> messageCount() == 3, Duration.ofSeconds(10));
+    }
+
+    @Test
+    void invalidRowIsDroppedAndOthersKept() {
+        ReflectionTestUtils.setField(queue, "queueCapacity", 10);
+        queue.start();
+
+        queue.offer(RENTAL, OWNER, SENDER, "ok-1");
+        queue.offer(999L, OWNER, SENDER, "unknown rental");
+        queue.offer(RENTAL, OWNER, SENDER, "ok-2");
+
+        waitUntil(() -> messageCount() == 2, Duration.ofSeconds(5));
+        verify(broker, timeout(5_000).times(2)).publish(eq(OWNER), any());
+    }
+
+    @Test
+    void fullQueueIsRejectedWith429() {
+        MessageWriteBehindQueue full = mock(MessageWriteBehindQueue.class);
+        when(full.offer(RENTAL, OWNER, SENDER, "m")).thenReturn(false);
+        MessageService service = new MessageService(mock(MessageRepository.class), mock(EntityManager.class),
+                broker, Optional.of(full));
+
+        assertThatThrownBy(() -> service.send(RENTAL, OWNER, SENDER, "m"))
+                .isInstanceOfSatisfying(ResponseStatusException.class,
+                        e -> assertThat(e.getStatusCode()).isEqualTo(HttpStatus.TOO_MANY_REQUESTS));
+    }
+
+    private static void waitUntil(BooleanSupplier condition, Duration timeout) {
+        long deadline = System.nanoTime() + timeout.toNanos();
+        while (!condition.getAsBoolean()) {
+            assertThat(System.nanoTime()).as("condition not met within %s", timeout).isLessThan(deadline);
+            try {
+                Thread.sleep(20);
+            } catch (InterruptedException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+    }
+
+    private int messageCount() {
+        return jdbc.queryForObject("select count(*) from messages", Integer.class);
+    }
+
+    /**
+     * Refuse les connexions tant que {@code down} vaut {@code true}, comme un pool qui n'obtient plus de connexion.
+     */
+    private static final class SwitchableDataSource extends DelegatingDataSource {
+        volatile boolean down;
+        volatile int failures;
+
+        SwitchableDataSource(DriverManagerDataSource target) {
+            super(target);
+        }
+
+        @Override
+        public Connection getConnection() throws SQLException {
+            if (down) {
+                failures++;
+                throw new SQLTransientConnectionException("database down");
+            }
+            return super.getConnection();
+        }
+    }
+}
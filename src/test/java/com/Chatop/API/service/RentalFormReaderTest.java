@@ -0,0 +1,126 @@
+package com.Chatop.API.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.http.HttpStatus;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.util.unit.DataSize;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Lecture du formulaire multipart sur un corps construit à la main, avec un répertoire d'upload temporaire.
+ */
+class RentalFormReaderTest {
+
+    private static final String BOUNDARY = "----chatop-test";
+
+    @TempDir
+    Path dir;
+
+    private RentalFormReader reader;
+
+    @BeforeEach
+    void setUp() {
+        FileStorageService storage = new FileStorageService(new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(storage, "uploadDir", dir.toString());
+        ReflectionTestUtils.setField(storage, "publicBaseUrl", "/images");
+        ReflectionTestUtils.setField(storage, "publicBaseUrlHost", "http://localhost:3001");
+        ReflectionTestUtils.invokeMethod(storage, "init");
+
+        reader = new RentalFormReader(storage);
+        ReflectionTestUtils.setField(reader, "maxFileSize", DataSize.ofKilobytes(64));
+        ReflectionTestUtils.setField(reader, "maxRequestSize", DataSize.ofKilobytes(128));
+    }
+
+    @Test
+    void readsFieldsAndStoresPicture() throws Exception {
+        RentalFormReader.RentalForm form = reader.read(request(body(picture(1024), true)));
+
+        assertThat(form.name()).isEqualTo("Studio");
+        assertThat(form.surface()).isEqualTo(20);
+        assertThat(form.price()).isEqualTo(500);
+        assertThat(form.pictureUrl()).startsWith("http://localhost:3001/images/").endsWith(".jpg");
+        assertThat(files()).hasSize(1);
+    }
+
+    @Test
+    void oversizedPictureIsRejectedWith413AndNothingIsKept() throws Exception {
+        MockHttpServletRequest request = request(body(picture(100 * 1024), true));
+
+        assertThatThrownBy(() -> reader.read(request))
+                .isInstanceOfSatisfying(ResponseStatusException.class,
+                        e -> assertThat(e.getStatusCode()).isEqualTo(HttpStatus.PAYLOAD_TOO_LARGE));
+        assertThat(files()).isEmpty();
+    }
+
+    @Test
+    void oversizedRequestIsRejectedWith413() throws Exception {
+        ReflectionTestUtils.setField(reader, "maxRequestSize", DataSize.ofKilobytes(16));
+
+        assertThatThrownBy(() -> reader.read(request(body(picture(32 * 1024), true))))
+                .isInstanceOfSatisfying(ResponseStatusException.class,
+                        e -> assertThat(e.getStatusCode()).isEqualTo(HttpStatus.PAYLOAD_TOO_LARGE));
+        assertThat(files()).isEmpty();
+    }
+
+    @Test
+    void abortedUploadLeavesNoPartialFile() throws Exception {
+        // Le client coupe la connexion au milieu de l'image : pas de délimiteur de fin
+        byte[] body = body(picture(32 * 1024), false);
+        MockHttpServletRequest request = request(Arrays.copyOf(body, body.length - 1024));
+
+        assertThatThrownBy(() -> reader.read(request)).isInstanceOf(IOException.class);
+        assertThat(files()).isEmpty();
+    }
+
+    private static MockHttpServletRequest request(byte[] body) {
+        MockHttpServletRequest request = new MockHttpServletRequest("POST", "/api/rentals");
+        request.setContentType("multipart/form-data; boundary=" + BOUNDARY);
+        request.setContent(body);
+        return request;
+    }
+
+    private static byte[] body(byte[] picture, boolean complete) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        for (String[] field : new String[][]{{"name", "Studio"}, {"surface", "20"}, {"price", "500"}, {"description", "Calme"}}) {
+            out.write(("--" + BOUNDARY + "\r\nContent-Disposition: form-data; name=\"" + field[0] + "\"\r\n\r\n"
+                    + field[1] + "\r\n").getBytes(StandardCharsets.UTF_8));
+        }
+        out.write(("--" + BOUNDARY + "\r\nContent-Disposition: form-data; name=\"picture\"; filename=\"p.jpg\"\r\n"
+                + "Content-Type: image/jpeg\r\n\r\n").getBytes(StandardCharsets.UTF_8));
+        out.write(picture);
+        if (complete) {
+            out.write(("\r\n--" + BOUNDARY + "--\r\n").getBytes(StandardCharsets.UTF_8));
+        }
+        return out.toByteArray();
+    }
+
+    private static byte[] picture(int size) {
+        byte[] bytes = new byte[size];
+        for (int i = 0; i < size; i++) {
+            bytes[i] = (byte) (i * 31 + 7);
+        }
+        return bytes;
+    }
+
+    private List<Path> files() throws IOException {
+        try (Stream<Path> files = Files.list(dir)) {
+            return files.toList();
+        }
+    }
+}
@@ -0,0 +1,165 @@
+package com.Chatop.API.service;
+
+import com.Chatop.API.dto.rental.RentalResponse;
+import com.Chatop.API.repository.RentalRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class RentalSearchIndexTest {
+
+    private static final Instant T0 = Instant.parse("2024-01-01T00:00:00Z");
+
+    private RentalRepository rentalRepository;
+    private RentalSearchIndex index;
+
+    @BeforeEach
+    void setUp() {
+        rentalRepository = mock(RentalRepository.class);
+        index = new RentalSearchIndex(rentalRepository);
+    }
+
+    @Test
+    void combinesTextPriceAndSurfaceFilters() {
+        build(rental(1, "Studio lumineux", 100, 20, 0),
+                rental(2, "Grand studio", 300, 50, 1),
+                rental(3, "Maison à la campagne", 300, 120, 2),
+                rental(4, "Studio Été", 500, 25, 3));
+
+        assertThat(ids(index.search("studio", null, null, null, null, null, null, 10))).containsExactly(1L, 2L, 4L);
+        assertThat(ids(index.search("stu", 200, null, null, null, null, null, 10))).containsExactly(2L, 4L);
+        assertThat(ids(index.search("studio", 200, 400, null, 30, null, null, 10))).isEmpty();
+        assertThat(ids(index.search(null, 300, 300, 100, null, null, null, 10))).containsExactly(3L);
+        // Sans accents ni casse, tous les mots requis
+        assertThat(ids(index.search("STUDIO ete", null, null, null, null, null, null, 10))).containsExactly(4L);
+        assertThat(ids(index.search("campagne studio", null, null, null, null, null, null, 10))).isEmpty();
+    }
+
+    @Test
+    void equalValuesAreOrderedById() {
+        build(rental(5, "a", 200, 30, 0),
+                rental(2, "b", 100, 30, 0),
+                rental(9, "c", 200, 10, 0),
+                rental(7, "d", 100, 30, 0));
+
+        assertThat(ids(index.search(null, null, null, null, null, "price", null, 10))).containsExactly(2L, 7L, 5L, 9L);
+        assertThat(ids(index.search(null, null, null, null, null, "-price", null, 10))).containsExactly(9L, 5L, 7L, 2L);
+        assertThat(ids(index.search(null, null, null, null, null, "surface", null, 10))).containsExactly(9L, 2L, 5L, 7L);
+        assertThat(ids(index.search(null, null, null, null, null, "created_at", null, 10))).containsExactly(2L, 5L, 7L, 9L);
+    }
+
+    @Test
+    void pagesResumeAfterLastRowOnTies() {
+        List<RentalResponse> rows = new ArrayList<>();
+        for (int id = 1; id <= 7; id++) {
+            rows.add(rental(id, "r", id % 2 == 0 ? 100 : 200, 10, id % 3));
+        }
+        build(rows.toArray(RentalResponse[]::new));
+
+        for (String sort : List.of("price", "-price", "created_at", "-created_at", "id", "-id")) {
+            List<Long> all = ids(index.search(null, null, null, null, null, sort, null, 100));
+            assertThat(pageThrough(sort, 2)).as(sort).isEqualTo(all);
+        }
+    }
+
+    @Test
+    void pagingAcrossInsertsNeitherSkipsNorRepeats() {
+        build(rental(1, "r", 100, 10, 0),
+                rental(2, "r", 200, 10, 0),
+                rental(3, "r", 300, 10, 0),
+                rental(4, "r", 400, 10, 0));
+
+        KeysetPage<RentalResponse> first = index.search(null, null, null, null, null, "price", null, 2);
+        assertThat(ids(first)).containsExactly(1L, 2L);
+
+        // Une location avant le curseur (déjà dépassée) et une après
+        index.put(rental(5, "r", 50, 10, 0));
+        index.put(rental(6, "r", 350, 10, 0));
+
+        KeysetPage<RentalResponse> second = index.search(null, null, null, null, null, "price", first.nextCursor(), 2);
+        assertThat(ids(second)).containsExactly(3L, 6L);
+        KeysetPage<RentalResponse> third = index.search(null, null, null, null, null, "price", second.nextCursor(), 2);
+        assertThat(ids(third)).containsExactly(4L);
+        assertThat(third.nextCursor()).isNull();
+    }
+
+    @Test
+    void idOrderDoesNotDependOnInsertionOrder() {
+        build(rental(10, "r", 100, 10, 0));
+        // Enregistrements concurrents publiés dans le désordre
+        index.put(rental(30, "r", 100, 10, 0));
+        index.put(rental(20, "r", 100, 10, 0));
+
+        assertThat(ids(index.search(null, null, null, null, null, null, null, 10))).containsExactly(10L, 20L, 30L);
+        assertThat(ids(index.search(null, null, null, null, null, "price", null, 10))).containsExactly(10L, 20L, 30L);
+    }
+
+    @Test
+    void updateMovesRentalAndReplacesItsText() {
+        build(rental(1, "Studio", 100, 10, 0),
+                rental(2, "Loft", 200, 10, 0));
+
+        index.put(rental(1, "Maison", 300, 10, 0));
+
+        assertThat(ids(index.search(null, null, null, null, null, "price", null, 10))).containsExactly(2L, 1L);
+        assertThat(ids(index.search("studio", null, null, null, null, null, null, 10))).isEmpty();
+        assertThat(ids(index.search("maison", 250, null, null, null, null, null, 10))).containsExactly(1L);
+    }
+
+    @Test
+    void putDuringRebuildIsKept() {
+        when(rentalRepository.findAllResponses()).thenAnswer(invocation -> {
+            // Enregistré après la lecture : absent du résultat, mais rejoué sur le nouvel index
+            index.put(rental(2, "Nouveau", 100, 10, 0));
+            return List.of(rental(1, "Ancien", 100, 10, 0));
+        });
+
+        index.rebuild();
+
+        assertThat(ids(index.search(null, null, null, null, null, null, null, 10))).containsExactly(1L, 2L);
+    }
+
+    @Test
+    void rejectsCursorOfAnotherSort() {
+        build(rental(1, "r", 100, 10, 0), rental(2, "r", 200, 10, 0));
+        String cursor = index.search(null, null, null, null, null, "price", null, 1).nextCursor();
+
+        assertThatThrownBy(() -> index.search(null, null, null, null, null, "surface", cursor, 1))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> index.search(null, null, null, null, null, "price", "not-a-cursor", 1))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    private List<Long> pageThrough(String sort, int limit) {
+        List<Long> result = new ArrayList<>();
+        String after = null;
+        do {
+            KeysetPage<RentalResponse> page = index.search(null, null, null, null, null, sort, after, limit);
+            result.addAll(ids(page));
+            after = page.nextCursor();
+        } while (after != null);
+        return result;
+    }
+
+    private void build(RentalResponse... rentals) {
+        when(rentalRepository.findAllResponses()).thenReturn(List.of(rentals));
+        index.rebuild();
+    }
+
+    private static RentalResponse rental(long id, String name, int price, int surface, int createdDay) {
+        Instant createdAt = T0.plusSeconds(86_400L * createdDay);
+        return new RentalResponse(id, name, surface, price, "/images/" + id + ".jpg", "", 1L, createdAt, createdAt);
+    }
+
+    private static List<Long> ids(KeysetPage<RentalResponse> page) {
+        return page.items().stream().map(RentalResponse::getId).toList();
+    }
+}
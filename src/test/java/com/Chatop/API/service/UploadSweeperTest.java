@@ -0,0 +1,77 @@
+package com.Chatop.API.service;
+
+import com.Chatop.API.repository.RentalRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.time.Duration;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class UploadSweeperTest {
+
+    @TempDir
+    Path dir;
+
+    private RentalRepository rentalRepository;
+    private UploadSweeper sweeper;
+
+    @BeforeEach
+    void setUp() {
+        FileStorageService storage = new FileStorageService(new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(storage, "uploadDir", dir.toString());
+        ReflectionTestUtils.setField(storage, "publicBaseUrl", "/images");
+        ReflectionTestUtils.setField(storage, "publicBaseUrlHost", "http://localhost:3001");
+
+        rentalRepository = mock(RentalRepository.class);
+        sweeper = new UploadSweeper(rentalRepository, storage);
+        ReflectionTestUtils.setField(sweeper, "gracePeriod", Duration.ofHours(1));
+    }
+
+    @Test
+    void keepsFilesReferencedUnderAnotherHost() throws Exception {
+        Path picture = oldFile("aaaa.jpg");
+        Path thumbnail = oldFile("aaaa-thumb.jpg");
+        Path full = oldFile("aaaa-full.jpg");
+        Path orphan = oldFile("bbbb.jpg");
+        when(rentalRepository.findAllPictureUrls()).thenReturn(List.<Object[]>of(new Object[]{
+                "https://chatop.example.com/images/aaaa.jpg",
+                "http://10.0.0.5:8080/static/images/aaaa-thumb.jpg?v=2",
+                null,
+                "/images/aaaa-full.jpg"}));
+
+        sweeper.sweep();
+
+        assertThat(picture).exists();
+        assertThat(thumbnail).exists();
+        assertThat(full).exists();
+        assertThat(orphan).doesNotExist();
+    }
+
+    @Test
+    void keepsRecentFilesAndRemovesAbandonedWrites() throws Exception {
+        Path recent = Files.writeString(dir.resolve("cccc.jpg"), "recent");
+        Path abandoned = oldFile(FileStorageService.TEMP_PREFIX + "1.tmp");
+        when(rentalRepository.findAllPictureUrls()).thenReturn(List.of());
+
+        sweeper.sweep();
+
+        assertThat(recent).exists();
+        assertThat(abandoned).doesNotExist();
+    }
+
+    private Path oldFile(String name) throws Exception {
+        Path file = Files.writeString(dir.resolve(name), name);
+        Files.setLastModifiedTime(file, FileTime.fromMillis(System.currentTimeMillis() - Duration.ofDays(1).toMillis()));
+        return file;
+    }
+}